@@ -0,0 +1,88 @@
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// FilterKernels on the Vector API. Needs --add-modules jdk.incubator.vector at compile and run time, so it lives
+// outside src and is only built by "compile.sh simd"; FilterKernels.of() falls back to the scalar version without it.
+//
+// Filtering tests a whole vector of packed words against the guessed letter at once. That only pays off
+// when a word is a single long (words of up to 12 letters, nearly all of the dictionary) kept in a heap
+// array, so longer words and memory mapped groups go through the scalar loops.
+public class VectorKernels extends FilterKernels {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    // High bit of every used field of the words whose letter fields equal letter.
+    private static LongVector matchingFields(LongVector packed, int letter, long usedFields) {
+        LongVector x = packed.lanewise(VectorOperators.XOR, WordGroup.LOW_BITS * letter);
+        LongVector y = x.lanewise(VectorOperators.AND, WordGroup.LOW_NIBBLES).lanewise(VectorOperators.ADD, WordGroup.LOW_NIBBLES);
+        return y.lanewise(VectorOperators.OR, x).lanewise(VectorOperators.NOT).lanewise(VectorOperators.AND, usedFields);
+    }
+
+    private static LongVector load(long[] words, int[] survivors, int n, boolean all) {
+        return all ? LongVector.fromArray(LONGS, words, n) : LongVector.fromArray(LONGS, words, 0, survivors, n);
+    }
+
+    public int filterBadLetter(WordGroup group, int[] survivors, int from, int to, boolean all, int letter, short[][] removed) {
+        if (group.stride != 1 || !group.words.hasArray()) {
+            return super.filterBadLetter(group, survivors, from, to, all, letter, removed);
+        }
+        long[] words = group.words.array();
+        long usedFields = group.usedFields[0];
+        int kept = from;
+        int n = from;
+        for (int upper = from + LONGS.loopBound(to - from); n < upper; n += LONGS.length()) {
+            VectorMask<Long> found = matchingFields(load(words, survivors, n, all), letter, usedFields).compare(VectorOperators.NE, 0);
+            long bits = found.toLong();
+            for (int lane = 0; lane < LONGS.length(); lane++) {
+                int word = all ? n + lane : survivors[n + lane];
+                if ((bits & (1L << lane)) != 0) {
+                    group.countLetters(word, removed);
+                } else {
+                    survivors[kept++] = word;
+                }
+            }
+        }
+        for (; n < to; n++) {
+            int word = all ? n : survivors[n];
+            if (group.containsLetter(word, letter)) {
+                group.countLetters(word, removed);
+            } else {
+                survivors[kept++] = word;
+            }
+        }
+        return kept;
+    }
+
+    public int filterPattern(WordGroup group, int[] survivors, int from, int to, boolean all, int letter, long[] goodFields, short[][] removed) {
+        if (group.stride != 1 || !group.words.hasArray()) {
+            return super.filterPattern(group, survivors, from, to, all, letter, goodFields, removed);
+        }
+        long[] words = group.words.array();
+        long usedFields = group.usedFields[0];
+        int kept = from;
+        int n = from;
+        for (int upper = from + LONGS.loopBound(to - from); n < upper; n += LONGS.length()) {
+            VectorMask<Long> matches = matchingFields(load(words, survivors, n, all), letter, usedFields).compare(VectorOperators.EQ, goodFields[0]);
+            long bits = matches.toLong();
+            for (int lane = 0; lane < LONGS.length(); lane++) {
+                int word = all ? n + lane : survivors[n + lane];
+                if ((bits & (1L << lane)) != 0) {
+                    survivors[kept++] = word;
+                } else {
+                    group.countLetters(word, removed);
+                }
+            }
+        }
+        for (; n < to; n++) {
+            int word = all ? n : survivors[n];
+            if (group.matchesPattern(word, letter, goodFields)) {
+                survivors[kept++] = word;
+            } else {
+                group.countLetters(word, removed);
+            }
+        }
+        return kept;
+    }
+}
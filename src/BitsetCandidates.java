@@ -0,0 +1,172 @@
+import java.util.Arrays;
+
+// CandidateSet backed by a BitsetIndex. A game only owns the bitset of surviving words;
+// the index itself is shared and never modified.
+public class BitsetCandidates implements CandidateSet {
+
+    private BitsetIndex index = null;
+
+    private long[] alive = new long[0];
+
+    // Scratch for getBestGuess.
+    private final int[] totalFrequency = new int[26];
+
+    // alive is all zero outside of blocks [first, last). Keeps late-game scans short.
+    private int first;
+    private int last;
+
+    // Start over with every word of index alive. alive is reused when it is already big enough.
+    public void reset(BitsetIndex index) {
+        this.index = index;
+        if (alive.length < index.blocks) {
+            alive = new long[index.blocks];
+        }
+        Arrays.fill(alive, 0, index.blocks, -1L);
+        int tail = index.count & 63;
+        if (tail != 0) {
+            alive[index.blocks - 1] = (1L << tail) - 1;
+        }
+        first = 0;
+        last = index.blocks;
+    }
+
+    // Forget the index and the bitset, so an idle set holds nothing that grows with the dictionary.
+    public void release() {
+        index = null;
+        alive = new long[0];
+        first = 0;
+        last = 0;
+    }
+
+    public void processBadLetter(char badLetter) {
+        long[] bad = index.containing[badLetter - 'a'];
+        for (int i = first; i < last; i++) {
+            alive[i] &= ~bad[i];
+        }
+        shrinkRange();
+    }
+
+    public void processGoodPositions(char goodLetter, int positions) {
+        int letter = goodLetter - 'a';
+        for (int position = 0; position < index.length; position++) {
+            keepLetterAt(letter, position, (positions & (1 << position)) != 0);
+        }
+        shrinkRange();
+    }
+
+    public void processGoodPattern(char goodLetter, String pattern) {
+        int letter = goodLetter - 'a';
+        for (int position = 0; position < index.length; position++) {
+            keepLetterAt(letter, position, pattern.charAt(position) == goodLetter);
+        }
+        shrinkRange();
+    }
+
+    // Keep the words with letter at position if there is set, the words without it otherwise.
+    private void keepLetterAt(int letter, int position, boolean there) {
+        long[] here = index.atPosition[position * 26 + letter];
+        if (there) {
+            for (int i = first; i < last; i++) {
+                alive[i] &= here[i];
+            }
+        } else {
+            for (int i = first; i < last; i++) {
+                alive[i] &= ~here[i];
+            }
+        }
+    }
+
+    private void shrinkRange() {
+        while (first < last && alive[first] == 0) {
+            first++;
+        }
+        while (last > first && alive[last - 1] == 0) {
+            last--;
+        }
+    }
+
+    public char getBestGuess(int blanks, boolean[] guessedLetters) {
+        // Same heuristic as WordGroup: sum positional letter counts over the blanks, counted with popcounts.
+        Arrays.fill(totalFrequency, 0);
+        for (int position = 0; position < index.length; position++) {
+            if ((blanks & (1 << position)) != 0) {
+                addLetterCounts(position, guessedLetters);
+            }
+        }
+        return (char)(WordGroup.mostFrequent(totalFrequency, guessedLetters) + 'a');
+    }
+
+    public char getBestGuess(String currentMask, boolean[] guessedLetters) {
+        Arrays.fill(totalFrequency, 0);
+        for (int position = 0; position < index.length; position++) {
+            if (currentMask.charAt(position) == ' ') {
+                addLetterCounts(position, guessedLetters);
+            }
+        }
+        return (char)(WordGroup.mostFrequent(totalFrequency, guessedLetters) + 'a');
+    }
+
+    private void addLetterCounts(int position, boolean[] guessedLetters) {
+        for (int letter = 0; letter < 26; letter++) {
+            if (guessedLetters[letter]) {
+                continue;
+            }
+            long[] here = index.atPosition[position * 26 + letter];
+            int total = 0;
+            for (int i = first; i < last; i++) {
+                total += Long.bitCount(alive[i] & here[i]);
+            }
+            totalFrequency[letter] += total;
+        }
+    }
+
+    public int size() {
+        int total = 0;
+        for (int i = first; i < last; i++) {
+            total += Long.bitCount(alive[i]);
+        }
+        return total;
+    }
+
+    public WordGroup group() {
+        return index.group;
+    }
+
+    public int words(int[] words) {
+        int n = 0;
+        for (int i = first; i < last; i++) {
+            long bits = alive[i];
+            while (bits != 0) {
+                words[n++] = (i << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return n;
+    }
+
+    private static class BitsetSnapshot implements Snapshot {
+        final int first;
+        final long[] alive;
+
+        BitsetSnapshot(int first, long[] alive) {
+            this.first = first;
+            this.alive = alive;
+        }
+
+        public long sizeInBytes() {
+            return 32 + alive.length * 8L;
+        }
+    }
+
+    public Snapshot snapshot() {
+        return new BitsetSnapshot(first, Arrays.copyOfRange(alive, first, last));
+    }
+
+    public void restore(Snapshot snapshot) {
+        BitsetSnapshot saved = (BitsetSnapshot)snapshot;
+        Arrays.fill(alive, 0, index.blocks, 0L);
+        System.arraycopy(saved.alive, 0, alive, saved.first, saved.alive.length);
+        first = saved.first;
+        last = saved.first + saved.alive.length;
+    }
+}
@@ -0,0 +1,50 @@
+// Precomputed bitsets over the words of one WordGroup. Bit w of a bitset stands for word w of the group.
+// Filtering a game's candidates then becomes a handful of word-parallel AND / AND-NOT passes,
+// and letter frequencies are popcounts instead of per-word bookkeeping.
+public class BitsetIndex {
+
+    public final WordGroup group;
+
+    public final int length;
+
+    // Number of words indexed, and the number of longs in each bitset.
+    public final int count;
+    public final int blocks;
+
+    // atPosition[position * 26 + letter]: words with letter at position.
+    public final long[][] atPosition;
+
+    // containing[letter]: words with letter anywhere.
+    public final long[][] containing;
+
+    public BitsetIndex(WordGroup group) {
+        this.group = group;
+        length = group.length;
+        count = group.count;
+        blocks = (count + 63) / 64;
+        atPosition = new long[length * 26][];
+        for (int i = 0; i < atPosition.length; i++) {
+            atPosition[i] = new long[blocks];
+        }
+        containing = new long[26][];
+        for (int i = 0; i < 26; i++) {
+            containing[i] = new long[blocks];
+        }
+
+        for (int w = 0; w < count; w++) {
+            int block = w >>> 6;
+            long bit = 1L << w;
+            int position = 0;
+            for (int k = 0; k < group.stride; k++) {
+                long packed = group.words.get(w * group.stride + k);
+                int end = Math.min(length, position + WordGroup.LETTERS_PER_LONG);
+                for (; position < end; position++) {
+                    int letter = (int)packed & 0x1F;
+                    atPosition[position * 26 + letter][block] |= bit;
+                    containing[letter][block] |= bit;
+                    packed >>>= WordGroup.BITS_PER_LETTER;
+                }
+            }
+        }
+    }
+}
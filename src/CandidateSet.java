@@ -0,0 +1,46 @@
+// The words that are still possible for the current hidden word, as seen by one game.
+// Each feedback narrows the set down, and the next guess is picked from whatever is left.
+public interface CandidateSet {
+
+    // Remove every candidate containing badLetter.
+    void processBadLetter(char badLetter);
+
+    // Keep only candidates with goodLetter in exactly the positions set in positions (bit i for position i).
+    // Words of up to WordGroup.MAX_MASK_LENGTH letters.
+    void processGoodPositions(char goodLetter, int positions);
+
+    // Keep only candidates with goodLetter in exactly the positions it shows up in pattern. Any length.
+    void processGoodPattern(char goodLetter, String pattern);
+
+    // Pick the most promising letter that is not in guessedLetters, for the positions set in blanks.
+    // Allocates nothing. Words of up to WordGroup.MAX_MASK_LENGTH letters.
+    char getBestGuess(int blanks, boolean[] guessedLetters);
+
+    // Pick the most promising letter that is not in guessedLetters, for the blanks in currentMask. Any length.
+    char getBestGuess(String currentMask, boolean[] guessedLetters);
+
+    // Number of candidates left.
+    int size();
+
+    // The WordGroup the candidates are words of.
+    WordGroup group();
+
+    // Write the index in group() of every candidate into words, which must hold at least size() ints.
+    // Returns the number written.
+    int words(int[] words);
+
+    // WordGroup.letterPositions for a word written by words().
+    default int letterPositions(int word, int[] positions) {
+        return group().letterPositions(word, positions);
+    }
+
+    // A compact copy of the candidates, which can be handed to restore() of another game on the same length.
+    Snapshot snapshot();
+
+    void restore(Snapshot snapshot);
+
+    interface Snapshot {
+        // Rough heap footprint, used to keep the StateCache within its budget.
+        long sizeInBytes();
+    }
+}
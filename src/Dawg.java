@@ -0,0 +1,294 @@
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+// The words of one WordGroup as a minimal acyclic automaton (DAWG): words that share a prefix share the path for
+// it, and words that share a suffix share the path for that, so every distinct word is one path from the root to
+// the single final node.
+//
+// All words of a group have the same length, so every node sits at a fixed depth: the nodes are numbered level by
+// level, and an edge out of a level d node always carries the letter at position d. A game's constraints (which
+// letters are still possible at each position) can then be applied while walking the automaton, see
+// DawgCandidates. Like a BitsetIndex it is built once per group and never modified. Unlike one it replaces the
+// group's packed words, which WordDictionary drops once the automaton is built.
+public class Dawg {
+
+    public final WordGroup group;
+
+    public final int length;
+
+    // Number of words, which is also the number of paths from root to the final node.
+    public final int count;
+
+    // Nodes of level d are levelStart[d] to levelStart[d + 1] - 1. Node 0 is the root, the last node is final.
+    public final int[] levelStart;
+
+    // Edges of node u are edgeStart[u] to edgeStart[u + 1] - 1, in increasing letter order.
+    public final int[] edgeStart;
+    public final byte[] edgeLetter;
+    public final int[] edgeTarget;
+
+    // Words below the earlier edges of the same node. Summed along a path it gives the word's rank in
+    // alphabetical order, which is how DawgCandidates.words() names its words. null unless built with ranks.
+    final int[] edgeRank;
+
+    // Working arrays of a build, a few ints per word. Building the groups of a dictionary one after another with one
+    // Scratch allocates them once, for the largest group, instead of once per group. Not thread safe.
+    static final class Scratch {
+        private int[] sorted = new int[0];
+        private int[] buffer = new int[0];
+        private int[] state = new int[0];
+        private int[] edges = new int[0];
+        private int[] nodeStart = new int[0];
+        private int[] known = new int[0];
+
+        private void ensureCapacity(int count) {
+            if (sorted.length < count) {
+                sorted = new int[count];
+                buffer = new int[count];
+                state = new int[count];
+                edges = new int[count];
+                nodeStart = new int[count + 1];
+            }
+            if (known.length < tableSize(count)) {
+                known = new int[tableSize(count)];
+            }
+        }
+
+        // Slots in the table of nodes made so far for count words: a level has at most count nodes.
+        private static int tableSize(int count) {
+            return Integer.highestOneBit(Math.max(1, count)) * 4;
+        }
+    }
+
+    // The automaton of group's words, which must still be there. ranked also builds edgeRank, which only a
+    // strategy that asks for the candidates' words needs.
+    public Dawg(WordGroup group, boolean ranked) {
+        this(group, ranked, new Scratch());
+    }
+
+    // The same, building in scratch. The build reads the letters straight out of the packed words and keeps each
+    // finished level as two flat arrays, so next to scratch it only needs about the automaton it is making, twice.
+    Dawg(WordGroup group, boolean ranked, Scratch scratch) {
+        this.group = group;
+        length = group.length;
+        count = group.count;
+        scratch.ensureCapacity(count);
+
+        // Sort the words alphabetically with one counting sort per position.
+        int[] sorted = scratch.sorted;
+        int[] buffer = scratch.buffer;
+        for (int w = 0; w < count; w++) {
+            sorted[w] = w;
+        }
+        int[] start = new int[27];
+        for (int position = length - 1; position >= 0; position--) {
+            Arrays.fill(start, 0);
+            for (int i = 0; i < count; i++) {
+                start[group.letterAt(sorted[i], position) + 1]++;
+            }
+            for (int letter = 0; letter < 26; letter++) {
+                start[letter + 1] += start[letter];
+            }
+            for (int i = 0; i < count; i++) {
+                buffer[start[group.letterAt(sorted[i], position)]++] = sorted[i];
+            }
+            int[] swap = sorted;
+            sorted = buffer;
+            buffer = swap;
+        }
+
+        // common[i]: how many leading letters sorted[i] shares with sorted[i - 1]. buffer takes its place.
+        int[] common = buffer;
+        for (int i = 0; i < count; i++) {
+            common[i] = i == 0 ? 0 : group.commonPrefix(sorted[i - 1], sorted[i]);
+        }
+
+        // Minimize bottom up. At level d, the words sharing their first d letters are one trie node. Its edges are the
+        // runs sharing d + 1 letters, each going to the node the run got at level d + 1. Equal edge lists are merged.
+        // state[w] is the node (numbered within its level) word w passes through at the level being built.
+        // A finished level keeps its edges (letter << 24 | child) back to back in levelEdges[d], node j's being
+        // levelEdges[d][levelNodes[d][j]] to levelEdges[d][levelNodes[d][j + 1] - 1].
+        int[] state = scratch.state;
+        int[][] levelEdges = new int[length + 1][];
+        int[][] levelNodes = new int[length + 1][];
+        levelEdges[length] = new int[0];
+        levelNodes[length] = new int[] {0, 0};
+        // The level being built, reusing the same arrays for every level: its edges and node starts as above, and an
+        // open addressing table of (node + 1) by edge list to find the nodes already made. A level has at most count
+        // edges.
+        int[] edges = scratch.edges;
+        int[] nodeStart = scratch.nodeStart;
+        int[] known = scratch.known;
+        int mask = Scratch.tableSize(count) - 1;
+        for (int d = length - 1; d >= 0; d--) {
+            Arrays.fill(known, 0, mask + 1, 0);
+            int nodes = 0;
+            int n = 0;
+            int from = 0;
+            while (from < count) {
+                int to = from + 1;
+                while (to < count && common[to] >= d) {
+                    to++;
+                }
+                int first = n;
+                int hash = 0;
+                for (int i = from; i < to; i++) {
+                    if (i == from || common[i] <= d) {
+                        edges[n] = group.letterAt(sorted[i], d) << 24 | state[sorted[i]];
+                        hash = hash * 31 + edges[n];
+                        n++;
+                    }
+                }
+                int slot = (hash * 0x9E3779B9 >>> 7) & mask;
+                int node = -1;
+                while (known[slot] != 0) {
+                    int other = known[slot] - 1;
+                    if (Arrays.equals(edges, nodeStart[other], nodeStart[other + 1], edges, first, n)) {
+                        node = other;
+                        break;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                if (node < 0) {
+                    node = nodes++;
+                    known[slot] = node + 1;
+                    nodeStart[nodes] = n;
+                } else {
+                    // Same as a node made before; take back its copy of the edges.
+                    n = first;
+                }
+                for (int i = from; i < to; i++) {
+                    state[sorted[i]] = node;
+                }
+                from = to;
+            }
+            levelEdges[d] = Arrays.copyOf(edges, n);
+            levelNodes[d] = Arrays.copyOf(nodeStart, nodes + 1);
+        }
+        levelStart = new int[length + 2];
+        int edgeCount = 0;
+        for (int d = 0; d <= length; d++) {
+            levelStart[d + 1] = levelStart[d] + levelNodes[d].length - 1;
+            edgeCount += levelEdges[d].length;
+        }
+        int nodes = levelStart[length + 1];
+        edgeStart = new int[nodes + 1];
+        edgeLetter = new byte[edgeCount];
+        edgeTarget = new int[edgeCount];
+        int e = 0;
+        for (int d = 0; d <= length; d++) {
+            for (int j = 0; j < levelNodes[d].length - 1; j++) {
+                edgeStart[levelStart[d] + j] = e;
+                for (int i = levelNodes[d][j]; i < levelNodes[d][j + 1]; i++) {
+                    int edge = levelEdges[d][i];
+                    edgeLetter[e] = (byte)(edge >>> 24);
+                    edgeTarget[e] = levelStart[d + 1] + (edge & 0xFFFFFF);
+                    e++;
+                }
+            }
+            // Copied over, so this level can go.
+            levelEdges[d] = null;
+            levelNodes[d] = null;
+        }
+        edgeStart[nodes] = e;
+
+        if (!ranked) {
+            edgeRank = null;
+            return;
+        }
+        // Words below each node, from the final node up, for the ranks.
+        edgeRank = new int[edgeCount];
+        int[] paths = new int[nodes];
+        paths[nodes - 1] = 1;
+        for (int u = levelStart[length] - 1; u >= 0; u--) {
+            for (int i = edgeStart[u]; i < edgeStart[u + 1]; i++) {
+                edgeRank[i] = paths[u];
+                paths[u] += paths[edgeTarget[i]];
+            }
+        }
+    }
+
+    // The same as WordGroup.letterPositions for the word of alphabetical rank rank, found by following the edge
+    // ranks down from the root. Needs the ranks.
+    int letterPositions(int rank, int[] positions) {
+        int letters = 0;
+        int u = 0;
+        for (int d = 0; d < length; d++) {
+            int e = edgeStart[u + 1] - 1;
+            while (edgeRank[e] > rank) {
+                e--;
+            }
+            rank -= edgeRank[e];
+            positions[edgeLetter[e]] |= 1 << d;
+            letters |= 1 << edgeLetter[e];
+            u = edgeTarget[e];
+        }
+        return letters;
+    }
+
+    // Hands every word to action in alphabetical order, packed as in WordGroup. The array is reused for every word.
+    void forEachWord(Consumer<long[]> action) {
+        long[] packed = new long[group.stride];
+        int[] node = new int[length + 1];
+        int[] edge = new int[length + 1];
+        int depth = 0;
+        edge[0] = edgeStart[0];
+        while (depth >= 0) {
+            if (depth == length) {
+                action.accept(packed);
+                depth--;
+                continue;
+            }
+            int e = edge[depth]++;
+            if (e == edgeStart[node[depth] + 1]) {
+                depth--;
+                continue;
+            }
+            int shift = (depth % WordGroup.LETTERS_PER_LONG) * WordGroup.BITS_PER_LETTER;
+            int k = depth / WordGroup.LETTERS_PER_LONG;
+            packed[k] = (packed[k] & ~(0x1FL << shift)) | (long)edgeLetter[e] << shift;
+            node[depth + 1] = edgeTarget[e];
+            edge[depth + 1] = edgeStart[edgeTarget[e]];
+            depth++;
+        }
+    }
+
+    public int nodes() {
+        return levelStart[length + 1];
+    }
+
+    public int edges() {
+        return edgeStart[nodes()];
+    }
+
+    // Heap footprint of the automaton, and of its ranks if it has them.
+    public long sizeInBytes() {
+        return 16 * 5 + levelStart.length * 4L + edgeStart.length * 4L + edges() * (edgeRank == null ? 5L : 9L);
+    }
+
+    // Prints the automaton size per length, with and without ranks, next to the packed words it replaces,
+    // e.g. java Dawg words.txt
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: Dawg wordFile");
+            System.exit(-1);
+        }
+        Map<Integer, WordGroup> groups = new TreeMap<>(WordLoader.load(args[0]));
+        long totalWords = 0;
+        long totalDawg = 0;
+        long totalRanked = 0;
+        System.out.printf("%6s %8s %8s %8s %12s %12s %12s%n", "length", "words", "nodes", "edges", "packed B", "dawg B", "ranked B");
+        for (WordGroup group : groups.values()) {
+            Dawg dawg = new Dawg(group, false);
+            long ranked = new Dawg(group, true).sizeInBytes();
+            long packed = (long)group.count * group.stride * 8;
+            totalWords += packed;
+            totalDawg += dawg.sizeInBytes();
+            totalRanked += ranked;
+            System.out.printf("%6d %8d %8d %8d %12d %12d %12d%n", group.length, group.count, dawg.nodes(), dawg.edges(), packed, dawg.sizeInBytes(), ranked);
+        }
+        System.out.printf("%6s %8s %8s %8s %12d %12d %12d%n", "all", "", "", "", totalWords, totalDawg, totalRanked);
+    }
+}
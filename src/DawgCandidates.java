@@ -0,0 +1,318 @@
+import java.util.Arrays;
+
+// CandidateSet over a shared Dawg. Hangman feedback only ever says which letters are still possible at each
+// position, so a game keeps just that (allowed[position], one bit per letter), and the candidates are the paths of
+// the automaton that only use allowed letters.
+//
+// After every filter the surviving paths are counted with one pruned walk: forward from the root through allowed
+// edges, collecting the nodes reached per level and how many paths reach each (into), then backward over just those
+// nodes, counting how many allowed paths lead on to the final node (out). An allowed edge u -> v of level d lies on
+// into[u] * out[v] candidates, so that is what its letter adds to the frequency at position d. The more constrained
+// the game, the fewer nodes the walk touches.
+public class DawgCandidates implements CandidateSet {
+
+    private static final int ALL_LETTERS = (1 << 26) - 1;
+
+    private Dawg dawg = null;
+
+    private int[] allowed = new int[0];
+
+    // frequency[position * 26 + letter] over the candidates, and how many there are.
+    private int[] frequency = new int[0];
+    private int count = 0;
+
+    // Scratch for the walk, indexed by node. Only the nodes in live hold anything; the rest stay 0.
+    private int[] into = new int[0];
+    private int[] out = new int[0];
+    // Nodes reached by the last walk, level by level: level d is live[liveStart[d], liveStart[d + 1]).
+    private int[] live = new int[0];
+    private int[] liveStart = new int[0];
+    private int liveCount = 0;
+    // Whether into, out and live match allowed, which they do not after a reset or restore. Once they do, live
+    // only holds the nodes on some candidate path.
+    private boolean counted = false;
+
+    // Scratch for getBestGuess and words.
+    private final int[] totalFrequency = new int[26];
+    private int[] pathNode = new int[0];
+    private int[] pathEdge = new int[0];
+    private int[] pathRank = new int[0];
+
+    // Start over with every word of dawg alive.
+    public void reset(Dawg dawg) {
+        clearWalk();
+        this.dawg = dawg;
+        int length = dawg.length;
+        if (allowed.length < length) {
+            allowed = new int[length];
+            frequency = new int[length * 26];
+            liveStart = new int[length + 2];
+            pathNode = new int[length + 1];
+            pathEdge = new int[length + 1];
+            pathRank = new int[length + 1];
+        }
+        Arrays.fill(allowed, 0, length, ALL_LETTERS);
+        for (int i = 0; i < length * 26; i++) {
+            frequency[i] = dawg.group.frequencyMap.get(i);
+        }
+        count = dawg.count;
+        int nodes = dawg.nodes();
+        if (into.length < nodes) {
+            into = new int[nodes];
+            out = new int[nodes];
+            live = new int[nodes];
+        }
+    }
+
+    // Forget the dawg and the per node scratch, so an idle set holds nothing that grows with the dictionary. The
+    // per position arrays are kept for the next reset.
+    public void release() {
+        clearWalk();
+        dawg = null;
+        into = new int[0];
+        out = new int[0];
+        live = new int[0];
+    }
+
+    private void clearWalk() {
+        for (int i = 0; i < liveCount; i++) {
+            into[live[i]] = 0;
+            out[live[i]] = 0;
+        }
+        liveCount = 0;
+        counted = false;
+    }
+
+    public void processBadLetter(char badLetter) {
+        int bit = 1 << (badLetter - 'a');
+        for (int position = 0; position < dawg.length; position++) {
+            allowed[position] &= ~bit;
+        }
+        recount();
+    }
+
+    public void processGoodPositions(char goodLetter, int positions) {
+        int bit = 1 << (goodLetter - 'a');
+        for (int position = 0; position < dawg.length; position++) {
+            allowed[position] &= (positions & (1 << position)) != 0 ? bit : ~bit;
+        }
+        recount();
+    }
+
+    public void processGoodPattern(char goodLetter, String pattern) {
+        int bit = 1 << (goodLetter - 'a');
+        for (int position = 0; position < dawg.length; position++) {
+            allowed[position] &= pattern.charAt(position) == goodLetter ? bit : ~bit;
+        }
+        recount();
+    }
+
+    // The pruned walk described at the top, filling into, out, live, frequency and count. Filters only ever take
+    // letters away, so every candidate path left runs through nodes the last walk kept: after the first walk the
+    // forward pass only goes over those instead of searching from the root again.
+    private void recount() {
+        int length = dawg.length;
+        int[] edgeStart = dawg.edgeStart;
+        byte[] edgeLetter = dawg.edgeLetter;
+        int[] edgeTarget = dawg.edgeTarget;
+
+        if (!counted) {
+            // Everything reachable from the root through allowed edges.
+            clearWalk();
+            live[liveCount++] = 0;
+            into[0] = 1;
+            liveStart[0] = 0;
+            for (int d = 0; d < length; d++) {
+                liveStart[d + 1] = liveCount;
+                int letters = allowed[d];
+                for (int i = liveStart[d]; i < liveStart[d + 1]; i++) {
+                    int u = live[i];
+                    for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                        if ((letters & (1 << edgeLetter[e])) != 0) {
+                            int v = edgeTarget[e];
+                            if (into[v] == 0) {
+                                live[liveCount++] = v;
+                            }
+                            into[v] += into[u];
+                        }
+                    }
+                }
+            }
+            liveStart[length + 1] = liveCount;
+        } else {
+            // The same over the nodes kept last time, which still have their old out.
+            for (int i = 0; i < liveCount; i++) {
+                into[live[i]] = 0;
+            }
+            if (liveCount > 0) {
+                into[0] = 1;
+            }
+            for (int d = 0; d < length; d++) {
+                int letters = allowed[d];
+                for (int i = liveStart[d]; i < liveStart[d + 1]; i++) {
+                    int u = live[i];
+                    if (into[u] == 0) {
+                        continue;
+                    }
+                    for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                        int v = edgeTarget[e];
+                        if (out[v] != 0 && (letters & (1 << edgeLetter[e])) != 0) {
+                            into[v] += into[u];
+                        }
+                    }
+                }
+            }
+        }
+
+        // Backward over the same nodes, counting the frequencies on the way.
+        Arrays.fill(frequency, 0, length * 26, 0);
+        for (int i = liveStart[length]; i < liveStart[length + 1]; i++) {
+            out[live[i]] = into[live[i]] != 0 ? 1 : 0;
+        }
+        for (int d = length - 1; d >= 0; d--) {
+            int letters = allowed[d];
+            for (int i = liveStart[d]; i < liveStart[d + 1]; i++) {
+                int u = live[i];
+                int paths = 0;
+                if (into[u] != 0) {
+                    for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+                        int v = edgeTarget[e];
+                        if (out[v] != 0 && (letters & (1 << edgeLetter[e])) != 0) {
+                            paths += out[v];
+                            frequency[d * 26 + edgeLetter[e]] += into[u] * out[v];
+                        }
+                    }
+                }
+                out[u] = paths;
+            }
+        }
+        count = out[0];
+
+        // Keep only the nodes on some candidate path for next time.
+        int kept = 0;
+        for (int d = 0; d <= length; d++) {
+            int from = liveStart[d];
+            liveStart[d] = kept;
+            for (int i = from; i < liveStart[d + 1]; i++) {
+                int u = live[i];
+                if (out[u] != 0) {
+                    live[kept++] = u;
+                } else {
+                    into[u] = 0;
+                    out[u] = 0;
+                }
+            }
+        }
+        liveStart[length + 1] = kept;
+        liveCount = kept;
+        counted = true;
+    }
+
+    public char getBestGuess(int blanks, boolean[] guessedLetters) {
+        // Same heuristic as SurvivorSet, on the frequencies counted by the last walk.
+        Arrays.fill(totalFrequency, 0);
+        for (; blanks != 0; blanks &= blanks - 1) {
+            addLetterCounts(Integer.numberOfTrailingZeros(blanks), guessedLetters);
+        }
+        return (char)(WordGroup.mostFrequent(totalFrequency, guessedLetters) + 'a');
+    }
+
+    public char getBestGuess(String currentMask, boolean[] guessedLetters) {
+        Arrays.fill(totalFrequency, 0);
+        for (int position = 0; position < dawg.length; position++) {
+            if (currentMask.charAt(position) == ' ') {
+                addLetterCounts(position, guessedLetters);
+            }
+        }
+        return (char)(WordGroup.mostFrequent(totalFrequency, guessedLetters) + 'a');
+    }
+
+    private void addLetterCounts(int position, boolean[] guessedLetters) {
+        for (int letter = 0; letter < 26; letter++) {
+            if (!guessedLetters[letter]) {
+                totalFrequency[letter] += frequency[position * 26 + letter];
+            }
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public WordGroup group() {
+        return dawg.group;
+    }
+
+    // Walks every candidate path depth first, in alphabetical order, adding up the edge ranks to find each word.
+    // The group's words are gone, so the candidates are named by their alphabetical rank instead of an index in
+    // group(); letterPositions() reads them back off the automaton. Needs a Dawg built with ranks.
+    public int words(int[] words) {
+        if (!counted) {
+            recount();
+        }
+        int length = dawg.length;
+        int n = 0;
+        if (count == 0) {
+            return 0;
+        }
+        int depth = 0;
+        pathNode[0] = 0;
+        pathEdge[0] = dawg.edgeStart[0];
+        pathRank[0] = 0;
+        while (depth >= 0) {
+            if (depth == length) {
+                words[n++] = pathRank[depth];
+                depth--;
+                continue;
+            }
+            int u = pathNode[depth];
+            int e = pathEdge[depth]++;
+            if (e == dawg.edgeStart[u + 1]) {
+                depth--;
+                continue;
+            }
+            int v = dawg.edgeTarget[e];
+            if (out[v] != 0 && (allowed[depth] & (1 << dawg.edgeLetter[e])) != 0) {
+                pathNode[depth + 1] = v;
+                pathEdge[depth + 1] = dawg.edgeStart[v];
+                pathRank[depth + 1] = pathRank[depth] + dawg.edgeRank[e];
+                depth++;
+            }
+        }
+        return n;
+    }
+
+    public int letterPositions(int word, int[] positions) {
+        return dawg.letterPositions(word, positions);
+    }
+
+    private static class DawgSnapshot implements Snapshot {
+        final int[] allowed;
+        final int[] frequency;
+        final int count;
+
+        DawgSnapshot(int[] allowed, int[] frequency, int count) {
+            this.allowed = allowed;
+            this.frequency = frequency;
+            this.count = count;
+        }
+
+        public long sizeInBytes() {
+            return 16 * 3 + allowed.length * 4L + frequency.length * 4L;
+        }
+    }
+
+    // The constraints and the counts they give; the walk itself is redone only if words() needs it.
+    public Snapshot snapshot() {
+        int length = dawg.length;
+        return new DawgSnapshot(Arrays.copyOf(allowed, length), Arrays.copyOf(frequency, length * 26), count);
+    }
+
+    public void restore(Snapshot snapshot) {
+        DawgSnapshot saved = (DawgSnapshot)snapshot;
+        clearWalk();
+        System.arraycopy(saved.allowed, 0, allowed, 0, saved.allowed.length);
+        System.arraycopy(saved.frequency, 0, frequency, 0, saved.frequency.length);
+        count = saved.count;
+    }
+}
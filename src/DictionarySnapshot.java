@@ -0,0 +1,132 @@
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+  Binary snapshot of a preprocessed word list.
+
+  Usage: DictionarySnapshot wordFile snapshotFile
+
+  Holds every WordGroup exactly as HangmanPlayer builds it: the packed words, the frequency tables and
+  bestFirstGuess. HangmanPlayer recognizes a snapshot by its magic number, so the snapshot can be passed
+  anywhere a word file is expected (EvalHangmanPlayer words.snap hiddenWords1.txt). It is memory mapped
+  and the groups read their words and frequencies straight from the mapping, so there is no parsing and no
+  heap spike, and the dictionary never lives on the heap at all.
+
+  Layout, all little endian:
+     int magic, int version, int groupCount
+     groupCount directory entries of
+        int length, int count, int bestFirstGuess, int unused, long frequencyOffset, long wordsOffset
+     per group: length * 26 shorts of frequencyMap, then (8 byte aligned) count * stride longs of words
+*/
+public class DictionarySnapshot {
+
+    private static final int MAGIC = 0x48534e50; // "HSNP"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 12;
+    private static final int DIRECTORY_ENTRY_BYTES = 32;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: DictionarySnapshot wordFile snapshotFile");
+            System.exit(-1);
+        }
+        // The snapshot holds the packed words, which the dawg engine would drop.
+        PlayerOptions options = new PlayerOptions();
+        options.engine = PlayerOptions.Engine.ARENA;
+        HangmanPlayer player = new HangmanPlayer(args[0], options);
+        write(player.wordGroups(), args[1]);
+    }
+
+    // Does file start with the snapshot magic number?
+    public static boolean isSnapshot(String file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return Integer.reverseBytes(in.readInt()) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    public static void write(Map<Integer, WordGroup> wordsByLength, String snapshotFile) throws IOException {
+        TreeMap<Integer, WordGroup> groups = new TreeMap<>(wordsByLength);
+
+        long[] frequencyOffsets = new long[groups.size()];
+        long[] wordsOffsets = new long[groups.size()];
+        long size = HEADER_BYTES + (long)DIRECTORY_ENTRY_BYTES * groups.size();
+        int g = 0;
+        for (WordGroup group : groups.values()) {
+            frequencyOffsets[g] = size;
+            size = align(size + group.length * 26L * 2);
+            wordsOffsets[g] = size;
+            size += (long)group.count * group.stride * 8;
+            g++;
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(snapshotFile), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(MAGIC).putInt(VERSION).putInt(groups.size());
+            g = 0;
+            for (WordGroup group : groups.values()) {
+                out.putInt(group.length).putInt(group.count).putInt(group.bestFirstGuess).putInt(0);
+                out.putLong(frequencyOffsets[g]).putLong(wordsOffsets[g]);
+                g++;
+            }
+            g = 0;
+            for (WordGroup group : groups.values()) {
+                out.position((int)frequencyOffsets[g]);
+                for (int i = 0; i < group.length * 26; i++) {
+                    out.putShort(group.frequencyMap.get(i));
+                }
+                out.position((int)wordsOffsets[g]);
+                for (int i = 0; i < group.count * group.stride; i++) {
+                    out.putLong(group.words.get(i));
+                }
+                g++;
+            }
+            out.force();
+        }
+    }
+
+    // Map snapshotFile and add a WordGroup backed by the mapping for every length in it.
+    public static void read(String snapshotFile, Map<Integer, WordGroup> wordsByLength) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(Paths.get(snapshotFile), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        in.order(ByteOrder.LITTLE_ENDIAN);
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IOException(snapshotFile + " is not a version " + VERSION + " dictionary snapshot");
+        }
+        int groupCount = in.getInt();
+        for (int g = 0; g < groupCount; g++) {
+            int length = in.getInt();
+            int count = in.getInt();
+            char bestFirstGuess = (char)in.getInt();
+            in.getInt();
+            int frequencyOffset = (int)in.getLong();
+            int wordsOffset = (int)in.getLong();
+
+            ShortBuffer frequencyMap = in.slice(frequencyOffset, length * 26 * 2).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+            int wordsBytes = count * WordGroup.strideFor(length) * 8;
+            ByteBuffer words = in.slice(wordsOffset, wordsBytes).order(ByteOrder.LITTLE_ENDIAN);
+            wordsByLength.put(length, new WordGroup(length, count, words.asLongBuffer(), frequencyMap, bestFirstGuess));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.Arrays;
+
+// Scores every unguessed letter by how it would partition the candidates: a guess splits them by the positions
+// the letter is revealed at, with all candidates that lack the letter in one "miss" partition. Only misses cost
+// accuracy, so the letter with the smallest miss partition (the fewest expected misses) wins, and among those the
+// one whose partition carries the most information (entropy). Ranking by entropy alone plays no better than the
+// frequency heuristic on the hidden word files; this order plays better.
+//
+// The partitions of all 26 letters are counted in a single pass over the candidates. Each candidate is unpacked
+// once into a position mask per letter, and every (letter, mask) pair is counted in one open addressing table.
+// Any letter with a nonempty partition adds to its sum of c log c, so the entropy of every letter falls out of
+// one walk over the table.
+//
+// When the pass would not fit in budgetNanos, the frequency heuristic answers instead. Its cost is estimated from
+// the number of letters to unpack (candidates times length) at a fixed NANOS_PER_LETTER rather than measured, so
+// which letters get played, and with them the accuracy, never depend on timing.
+public class EntropyStrategy implements GuessStrategy {
+
+    // Rough cost of one letter of one candidate in the counting pass, on a warm JIT.
+    static final double NANOS_PER_LETTER = 2.0;
+
+    // Most candidate letters a counting pass may take on.
+    private final long letterBudget;
+
+    private int[] words = new int[0];
+
+    // Open addressing table of (letter + 1) << 32 | revealed positions -> candidates in that partition.
+    // 0 marks an empty slot. used lists the filled slots so they can be cleared again without a full sweep.
+    private long[] keys = new long[1024];
+    private int[] counts = new int[1024];
+    private int[] used = new int[512];
+    private int usedCount = 0;
+
+    private final int[] positions = new int[26];
+    private final int[] containing = new int[26];
+    private final double[] sumCLogC = new double[26];
+
+    public EntropyStrategy(long budgetNanos) {
+        this.letterBudget = (long)(budgetNanos / NANOS_PER_LETTER);
+    }
+
+    public char bestGuess(CandidateSet candidates, int blanks, boolean[] guessedLetters) {
+        int n = candidates.size();
+        WordGroup group = candidates.group();
+        if (n == 0 || (long)n * group.length > letterBudget) {
+            return candidates.getBestGuess(blanks, guessedLetters);
+        }
+
+        if (words.length < n) {
+            words = new int[n];
+        }
+        candidates.words(words);
+        int unguessed = 0;
+        for (int letter = 0; letter < 26; letter++) {
+            if (!guessedLetters[letter]) {
+                unguessed |= 1 << letter;
+            }
+        }
+
+        Arrays.fill(containing, 0);
+        for (int i = 0; i < n; i++) {
+            int present = candidates.letterPositions(words[i], positions);
+            int scored = present & unguessed;
+            while (scored != 0) {
+                int letter = Integer.numberOfTrailingZeros(scored);
+                scored &= scored - 1;
+                containing[letter]++;
+                count(((long)(letter + 1) << 32) | positions[letter]);
+            }
+            while (present != 0) {
+                positions[Integer.numberOfTrailingZeros(present)] = 0;
+                present &= present - 1;
+            }
+        }
+
+        Arrays.fill(sumCLogC, 0);
+        for (int i = 0; i < usedCount; i++) {
+            int slot = used[i];
+            int c = counts[slot];
+            sumCLogC[(int)(keys[slot] >>> 32) - 1] += c * Math.log(c);
+            keys[slot] = 0;
+        }
+        usedCount = 0;
+
+        // Fewest misses first, then most information.
+        int best = -1;
+        double bestEntropy = -1;
+        double logN = Math.log(n);
+        for (int letter = 0; letter < 26; letter++) {
+            if (guessedLetters[letter]) {
+                continue;
+            }
+            int misses = n - containing[letter];
+            double entropy = logN - (sumCLogC[letter] + (misses > 0 ? misses * Math.log(misses) : 0)) / n;
+            if (best < 0 || containing[letter] > containing[best]
+                    || (containing[letter] == containing[best] && entropy > bestEntropy)) {
+                bestEntropy = entropy;
+                best = letter;
+            }
+        }
+
+        return (char)('a' + best);
+    }
+
+    private void count(long key) {
+        int mask = keys.length - 1;
+        int slot = (int)((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == key) {
+            counts[slot]++;
+            return;
+        }
+        keys[slot] = key;
+        counts[slot] = 1;
+        if (usedCount == used.length) {
+            used = Arrays.copyOf(used, used.length * 2);
+        }
+        used[usedCount++] = slot;
+        if (usedCount * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    // Double the table and put every filled slot back.
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        int[] oldUsed = Arrays.copyOf(used, usedCount);
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldUsed.length; i++) {
+            long key = oldKeys[oldUsed[i]];
+            int slot = (int)((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            counts[slot] = oldCounts[oldUsed[i]];
+            used[i] = slot;
+        }
+    }
+}
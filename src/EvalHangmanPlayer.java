@@ -1,8 +1,15 @@
 import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.lang.management.*;
 
 /*
@@ -11,7 +18,35 @@ import java.lang.management.*;
   Email: tpatanwala2016@my.fit.edu
   Pseudocode: Philip Chan
 
-  Usage: EvalHangmanPlayer wordFile hiddenWordFile 
+  Usage: EvalHangmanPlayer wordFile hiddenWordFile [-threads N] [-metrics report.json|report.csv]
+                           [-api string|primitive]
+         EvalHangmanPlayer wordFile hiddenWordFile[,hiddenWordFile...] -iterations N [-warmup N]
+                           [-baseline file] [-saveBaseline file] [-threads N]
+
+  With -threads N the hidden words are split into N chunks that are played
+  at the same time, each on its own HangmanSession over the one dictionary
+  (player.newSession()). Accuracy, guesses and cpu time are added up over
+  all threads, so cpu time per guess still means the same thing.
+
+  With -metrics every guess and feedback call is also recorded into latency
+  histograms (cpu time and allocated bytes) per word length and candidate-set
+  size, see GuessMetrics. A summary of the tails is printed and the full table
+  is written as JSON or CSV, by the file extension. Each call is also a JFR
+  GuessEvent when run with -XX:StartFlightRecording.
+
+  With -api primitive the words are played through guess(int, boolean) and
+  feedback(char, int), which pass the word length and the revealed
+  positions as a bitmask instead of the partial word, so no Strings are
+  built per guess. Together with -metrics this shows the bytes allocated
+  per call once the player is warm, which should be 0 apart from the
+  feedback that first filters a word, which sets up its candidates.
+
+  With -iterations N the evaluation becomes a benchmark: the hidden words
+  (any number of comma separated files) are played -warmup times first, and
+  then N measured times. Mean, standard deviation and 95% confidence interval
+  of cpu time per guess, memory and score are reported. -saveBaseline file
+  keeps them, and -baseline file compares against them; the exit status is
+  1 when anything regressed.
 
   Description:
 
@@ -55,11 +90,35 @@ public class EvalHangmanPlayer
 {
     public static void main(String[]args) throws IOException{
 
-	if (args.length != 2) 
+        int threads = 1;
+        String metricsFile = null;
+        int warmup = 0;
+        int iterations = 0;
+        String baselineFile = null;
+        String saveBaselineFile = null;
+        String api = "string";
+        boolean validArgs = args.length >= 2 && args.length % 2 == 0;
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "-metrics": metricsFile = args[i + 1]; break;
+                case "-warmup": warmup = Integer.parseInt(args[i + 1]); break;
+                case "-iterations": iterations = Integer.parseInt(args[i + 1]); break;
+                case "-baseline": baselineFile = args[i + 1]; break;
+                case "-saveBaseline": saveBaselineFile = args[i + 1]; break;
+                case "-api": api = args[i + 1]; break;
+                default: validArgs = false;
+            }
+        }
+	if (!validArgs || threads < 1 || !(api.equals("string") || api.equals("primitive")))
         {
-            System.err.println("Usage: EvalHangmanPlayer wordFile hiddenWordFile");
+            System.err.println("Usage: EvalHangmanPlayer wordFile hiddenWordFile [-threads N] [-metrics report.json|report.csv]");
+            System.err.println("                         [-api string|primitive]");
+            System.err.println("       EvalHangmanPlayer wordFile hiddenWordFile[,hiddenWordFile...] -iterations N [-warmup N]");
+            System.err.println("                         [-baseline file] [-saveBaseline file] [-threads N]");
             System.exit(-1);
         }
+        primitiveApi = api.equals("primitive");
 
 	// for getting cpu time
 	ThreadMXBean bean = ManagementFactory.getThreadMXBean();        
@@ -92,101 +151,36 @@ public class EvalHangmanPlayer
         System.out.println("Used memory after preprocessing in bytes: " +
 			   df.format((double) peakMemoryUsage() ));
 
+        if (iterations > 0) {
+            boolean regressed = benchmark(player, readHiddenWords(args[1]), threads, warmup, iterations,
+                                          baselineFile, saveBaselineFile, bean);
+            System.exit(regressed ? 1 : 0);
+        }
+
         FileReader hiddenWordFile = new FileReader(args[1]);
         BufferedReader input = new BufferedReader(hiddenWordFile);
         
-        double totalWords = 0.0;
-        double totalGuessess = 0.0;
-        double totalElapsedTime = 0.0;
+        Totals totals = new Totals(metricsFile != null);
         String hiddenWord;
 	
 	System.out.println("Evaluation starts--HangmanPlayer is guessing...");
         //Perform operations for each line in the file
-        double accuracySum = 0.0;
-        while( (hiddenWord = input.readLine()) != null){
-            //Read a word from the hidden test file
-            hiddenWord = hiddenWord.trim().toLowerCase();
-            //Count the total hidden words
-            totalWords++;
-            //Create an empty string as the same size as the hidden word
-            StringBuilder wordWithGuessedLetters = new StringBuilder(hiddenWord.length());
-            //Fill the empty string with spaces
-            for(int i=0;i<hiddenWord.length();i++){
-                wordWithGuessedLetters.append(" ");
-            }
-            //To indicate that your program now has to guess a new hidden word
-            boolean newWord = true;
-            //To count the number of incorrect guesses
-            int numIncorrectGuesses = 0;
-            boolean correctGuess = false;
-            //While correct word is not guessed and the number of incorrect guesses is less than 6,
-            //Your program will keep trying to guess
-            while(numIncorrectGuesses < 6 && !correctGuess){
-                totalGuessess++;
-                //Record start time of the guess
-                long startTime = bean.getCurrentThreadCpuTime();
-                //Pass the partial word to the HangmanPlayer program to guess a letter
-                char guessedLetter = Character.toLowerCase(player.guess(wordWithGuessedLetters.toString(), newWord));
-                //To calculate the time taken for each guess operation
-                long endTime = bean.getCurrentThreadCpuTime();
-                totalElapsedTime = totalElapsedTime + (endTime - startTime);
-
-                newWord = false;
-                int i=0;
-                //Check if guessLetter was not guessed before
-                if(wordWithGuessedLetters.indexOf(String.valueOf(guessedLetter)) == -1){
-                    //Try to see if the guessed letter is correct, 
-                    //If Yes, then find the first position of the letter in the word
-                    while(i<hiddenWord.length() && hiddenWord.charAt(i) != guessedLetter){
-                        i++;
-                    }
-                }
-                else{
-                    i = hiddenWord.length();  //incorrect if the letter was guessed before
-                }
-                //This means that the guess was incorrect
-                if(i == hiddenWord.length()){
-                    //Increment the number of incorrect guesses
-                    numIncorrectGuesses++;
-                    //Calculate the time taken to process the feedback
-                    startTime = bean.getCurrentThreadCpuTime();
-                    //Send feedback that the guess was wrong
-                    player.feedback(false, wordWithGuessedLetters.toString());
-		    endTime = bean.getCurrentThreadCpuTime();
-		    totalElapsedTime = totalElapsedTime + (endTime - startTime);
-                }
-                //This means that the guess was correct
-                else{
-                    //Find other positions of the guessed character in the hidden word
-                    while(i<hiddenWord.length()){
-                        //The guessed letter is revealed in its correct positions in the word
-                        if(hiddenWord.charAt(i) == guessedLetter){
-                            wordWithGuessedLetters.setCharAt(i, guessedLetter);
-                        }
-                        i++;
-                    }
-                    
-                    //If all letters are guessed of the hidden word, then proceed with the next hidden word
-                    if(wordWithGuessedLetters.indexOf(" ") == -1)
-                        correctGuess = true;
-                    //Calculate the time taken to process the feedback
-                    startTime = bean.getCurrentThreadCpuTime();
-                    //Send feedback that correct letter was guessed
-                    player.feedback(true, wordWithGuessedLetters.toString());
-		    endTime = bean.getCurrentThreadCpuTime();
-		    totalElapsedTime = totalElapsedTime + (endTime - startTime);
-                }
+        if (threads <= 1) {
+            while( (hiddenWord = input.readLine()) != null){
+                //Read a word from the hidden test file
+                play(player, hiddenWord.trim().toLowerCase(), bean, totals);
             }
-            //Total accuracy is calculated before moving to the next hidden word
-            accuracySum += (1.0 - numIncorrectGuesses/6.0);
+        } else {
+            input.close();
+            playInParallel(player, readHiddenWords(args[1]), threads, bean, totals);
         }
 	input.close();
 	
         //Calculate the accuracy
-        double avgAccuracy = (accuracySum * 100.0) / totalWords;
+        double avgAccuracy = (totals.accuracySum * 100.0) / totals.words;
         System.out.printf("Accuracy: %.4f\n",avgAccuracy);
         
-	if (totalElapsedTime <= 0) // too small to measure, unlikely
+	if (totals.elapsedTime <= 0) // too small to measure, unlikely
 	   {
 	       System.err.println("Zero time usage was reported; please rerun on code01.fit.edu");
 	       System.exit(-1);
@@ -194,7 +188,7 @@ public class EvalHangmanPlayer
 	   }
 
        //Convert elapsed time into seconds, and calculate the Average time
-        double avgTime = (totalElapsedTime/1.0E9)/totalGuessess;
+        double avgTime = (totals.elapsedTime/1.0E9)/totals.guesses;
         
         //To format the Average time upto 4 decimal places.
         //DecimalFormat df = new DecimalFormat("0.####E0"); // moved to near initialization
@@ -213,10 +207,365 @@ public class EvalHangmanPlayer
         //OverAll Score
         System.out.printf("Score: %.4f\n",(avgAccuracy * avgAccuracy)/Math.sqrt(avgTime * memory));
 
+        if (totals.metrics != null) {
+            totals.metrics.printSummary();
+            totals.metrics.write(metricsFile);
+            System.out.println("Metrics written to " + metricsFile);
+        }
+
 	HangmanPlayer player2 = player;  // keep player used to avoid garbage collection of player
     }
 
+
+    // Play through the primitive guess/feedback API instead of the String one (-api primitive).
+    private static boolean primitiveApi = false;
+
+    // Running totals over the hidden words played so far.
+    private static class Totals
+    {
+        double words = 0.0;
+        double guesses = 0.0;
+        double elapsedTime = 0.0;
+        double accuracySum = 0.0;
+        // Per call histograms, or null when not asked for.
+        final GuessMetrics metrics;
+
+        Totals(boolean withMetrics)
+        {
+            metrics = withMetrics ? new GuessMetrics() : null;
+        }
+
+        void add(Totals other)
+        {
+            words += other.words;
+            guesses += other.guesses;
+            elapsedTime += other.elapsedTime;
+            accuracySum += other.accuracySum;
+            if (metrics != null) {
+                metrics.add(other.metrics);
+            }
+        }
+    }
+
+    // Play one hidden word to the end, timing guess() and feedback() on the current thread's cpu clock.
+    private static void play(HangmanSession player, String hiddenWord, ThreadMXBean bean, Totals totals)
+    {
+        // The primitive API only takes words of up to WordGroup.MAX_MASK_LENGTH letters.
+        if (primitiveApi && hiddenWord.length() <= WordGroup.MAX_MASK_LENGTH) {
+            playPrimitive(player, hiddenWord, bean, totals);
+            return;
+        }
+        //Count the total hidden words
+        totals.words++;
+        //Create an empty string as the same size as the hidden word
+        StringBuilder wordWithGuessedLetters = new StringBuilder(hiddenWord.length());
+        //Fill the empty string with spaces
+        for(int i=0;i<hiddenWord.length();i++){
+            wordWithGuessedLetters.append(" ");
+        }
+        //To indicate that your program now has to guess a new hidden word
+        boolean newWord = true;
+        //To count the number of incorrect guesses
+        int numIncorrectGuesses = 0;
+        boolean correctGuess = false;
+        //While correct word is not guessed and the number of incorrect guesses is less than 6,
+        //Your program will keep trying to guess
+        while(numIncorrectGuesses < 6 && !correctGuess){
+            totals.guesses++;
+            // Allocations are read outside of the cpu timing so metrics do not change it
+            long startBytes = totals.metrics == null ? 0 : GuessMetrics.allocatedBytes();
+            //Record start time of the guess
+            long startTime = bean.getCurrentThreadCpuTime();
+            //Pass the partial word to the HangmanPlayer program to guess a letter
+            char guessedLetter = Character.toLowerCase(player.guess(wordWithGuessedLetters.toString(), newWord));
+            //To calculate the time taken for each guess operation
+            long endTime = bean.getCurrentThreadCpuTime();
+            totals.elapsedTime += endTime - startTime;
+            if (totals.metrics != null) {
+                totals.metrics.record(GuessMetrics.GUESS, hiddenWord.length(), player.candidates(),
+                                      endTime - startTime, GuessMetrics.allocatedBytes() - startBytes);
+            }
+
+            newWord = false;
+            int i=0;
+            //Check if guessLetter was not guessed before
+            if(wordWithGuessedLetters.indexOf(String.valueOf(guessedLetter)) == -1){
+                //Try to see if the guessed letter is correct, 
+                //If Yes, then find the first position of the letter in the word
+                while(i<hiddenWord.length() && hiddenWord.charAt(i) != guessedLetter){
+                    i++;
+                }
+            }
+            else{
+                i = hiddenWord.length();  //incorrect if the letter was guessed before
+            }
+            //This means that the guess was incorrect
+            if(i == hiddenWord.length()){
+                //Increment the number of incorrect guesses
+                numIncorrectGuesses++;
+                //Calculate the time taken to process the feedback
+                int candidates = totals.metrics == null ? 0 : player.candidates();
+                startBytes = totals.metrics == null ? 0 : GuessMetrics.allocatedBytes();
+                startTime = bean.getCurrentThreadCpuTime();
+                //Send feedback that the guess was wrong
+                player.feedback(false, wordWithGuessedLetters.toString());
+		    endTime = bean.getCurrentThreadCpuTime();
+		    totals.elapsedTime += endTime - startTime;
+                if (totals.metrics != null) {
+                    totals.metrics.record(GuessMetrics.FEEDBACK, hiddenWord.length(), candidates,
+                                          endTime - startTime, GuessMetrics.allocatedBytes() - startBytes);
+                }
+            }
+            //This means that the guess was correct
+            else{
+                //Find other positions of the guessed character in the hidden word
+                while(i<hiddenWord.length()){
+                    //The guessed letter is revealed in its correct positions in the word
+                    if(hiddenWord.charAt(i) == guessedLetter){
+                        wordWithGuessedLetters.setCharAt(i, guessedLetter);
+                    }
+                    i++;
+                }
+                
+                //If all letters are guessed of the hidden word, then proceed with the next hidden word
+                if(wordWithGuessedLetters.indexOf(" ") == -1)
+                    correctGuess = true;
+                //Calculate the time taken to process the feedback
+                int candidates = totals.metrics == null ? 0 : player.candidates();
+                startBytes = totals.metrics == null ? 0 : GuessMetrics.allocatedBytes();
+                startTime = bean.getCurrentThreadCpuTime();
+                //Send feedback that correct letter was guessed
+                player.feedback(true, wordWithGuessedLetters.toString());
+		    endTime = bean.getCurrentThreadCpuTime();
+		    totals.elapsedTime += endTime - startTime;
+                if (totals.metrics != null) {
+                    totals.metrics.record(GuessMetrics.FEEDBACK, hiddenWord.length(), candidates,
+                                          endTime - startTime, GuessMetrics.allocatedBytes() - startBytes);
+                }
+            }
+        }
+        //Total accuracy is calculated before moving to the next hidden word
+        totals.accuracySum += (1.0 - numIncorrectGuesses/6.0);
+    }
+
+    // The same game as play(), through guess(int, boolean) and feedback(char, int). The partial word is kept as a
+    // bitmask of the blank positions, and the letters revealed so far as a bitmask of letters, so a guess
+    // allocates nothing on this side either.
+    private static void playPrimitive(HangmanSession player, String hiddenWord, ThreadMXBean bean, Totals totals)
+    {
+        totals.words++;
+        int length = hiddenWord.length();
+        int blanks = (1 << length) - 1;
+        int revealedLetters = 0;
+        boolean newWord = true;
+        int numIncorrectGuesses = 0;
+        while(numIncorrectGuesses < 6 && blanks != 0){
+            totals.guesses++;
+            long startBytes = totals.metrics == null ? 0 : GuessMetrics.allocatedBytes();
+            long startTime = bean.getCurrentThreadCpuTime();
+            char guessedLetter = Character.toLowerCase(player.guess(length, newWord));
+            long endTime = bean.getCurrentThreadCpuTime();
+            totals.elapsedTime += endTime - startTime;
+            if (totals.metrics != null) {
+                totals.metrics.record(GuessMetrics.GUESS, length, player.candidates(),
+                                      endTime - startTime, GuessMetrics.allocatedBytes() - startBytes);
+            }
+            newWord = false;
+
+            // A letter that was revealed before counts as incorrect, as in play().
+            int revealed = 0;
+            int letter = guessedLetter - 'a';
+            if (letter < 0 || letter >= 26 || (revealedLetters & (1 << letter)) == 0) {
+                for (int i = 0; i < length; i++) {
+                    if (hiddenWord.charAt(i) == guessedLetter) {
+                        revealed |= 1 << i;
+                    }
+                }
+            }
+            if (revealed == 0) {
+                numIncorrectGuesses++;
+            } else {
+                revealedLetters |= 1 << letter;
+                blanks &= ~revealed;
+            }
+
+            int candidates = totals.metrics == null ? 0 : player.candidates();
+            startBytes = totals.metrics == null ? 0 : GuessMetrics.allocatedBytes();
+            startTime = bean.getCurrentThreadCpuTime();
+            player.feedback(guessedLetter, revealed);
+            endTime = bean.getCurrentThreadCpuTime();
+            totals.elapsedTime += endTime - startTime;
+            if (totals.metrics != null) {
+                totals.metrics.record(GuessMetrics.FEEDBACK, length, candidates,
+                                      endTime - startTime, GuessMetrics.allocatedBytes() - startBytes);
+            }
+        }
+        totals.accuracySum += (1.0 - numIncorrectGuesses/6.0);
+    }
+
+    // Every hidden word of a comma separated list of files, in order.
+    private static List<String> readHiddenWords(String files) throws IOException
+    {
+        List<String> hiddenWords = new ArrayList<>();
+        for (String file : files.split(",")) {
+            try (BufferedReader input = new BufferedReader(new FileReader(file))) {
+                String hiddenWord;
+                while( (hiddenWord = input.readLine()) != null){
+                    hiddenWords.add(hiddenWord.trim().toLowerCase());
+                }
+            }
+        }
+        return hiddenWords;
+    }
+
+    // Play every hidden word once, on player itself or spread over threads sessions.
+    private static void playAll(HangmanPlayer player, List<String> hiddenWords, int threads,
+                                ThreadMXBean bean, Totals totals) throws IOException
+    {
+        if (threads <= 1) {
+            for (String hiddenWord : hiddenWords) {
+                play(player, hiddenWord, bean, totals);
+            }
+        } else {
+            playInParallel(player, hiddenWords, threads, bean, totals);
+        }
+    }
+
+    // Play the hidden words in threads contiguous chunks at the same time, one session per chunk.
+    private static void playInParallel(HangmanPlayer player, List<String> hiddenWords, int threads,
+                                       ThreadMXBean bean, Totals totals) throws IOException
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Totals>> results = new ArrayList<>();
+        int chunk = (hiddenWords.size() + threads - 1) / threads;
+        for (int from = 0; from < hiddenWords.size(); from += chunk) {
+            List<String> words = hiddenWords.subList(from, Math.min(from + chunk, hiddenWords.size()));
+            HangmanSession session = player.newSession();
+            results.add(pool.submit(() -> {
+                Totals chunkTotals = new Totals(totals.metrics != null);
+                for (String word : words) {
+                    play(session, word, bean, chunkTotals);
+                }
+                return chunkTotals;
+            }));
+        }
+        try {
+            for (Future<Totals> result : results) {
+                totals.add(result.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IOException(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
     
+    /*
+     * Benchmark mode: play all hiddenWords warmup times unmeasured, so the JIT has compiled the player, then
+     * iterations more times. Each measured pass reports its cpu time per guess, peak memory and score, and the
+     * mean, standard deviation and 95% confidence interval of each go out at the end. Peaks are reset before
+     * every pass, so memory is the peak of one pass over a warm player.
+     *
+     * A baseline saved with -saveBaseline can be compared with -baseline: a measure is flagged as a regression
+     * when it is worse and the two confidence intervals do not overlap, and any change in accuracy is flagged.
+     * Returns whether anything regressed.
+     */
+    private static boolean benchmark(HangmanPlayer player, List<String> hiddenWords, int threads, int warmup,
+                                     int iterations, String baselineFile, String saveBaselineFile,
+                                     ThreadMXBean bean) throws IOException
+    {
+        DecimalFormat df = new DecimalFormat("0.####E0");
+        System.out.println("Benchmark: " + warmup + " warmup and " + iterations + " measured passes over "
+                           + hiddenWords.size() + " hidden words");
+        for (int i = 0; i < warmup; i++) {
+            Totals totals = new Totals(false);
+            playAll(player, hiddenWords, threads, bean, totals);
+            System.out.println("Warmup " + (i + 1) + ": cpu time per guess " + df.format(totals.elapsedTime / 1.0E9 / totals.guesses));
+        }
+
+        double[] times = new double[iterations];
+        double[] memories = new double[iterations];
+        double[] scores = new double[iterations];
+        double accuracy = 0;
+        for (int i = 0; i < iterations; i++) {
+            Runtime.getRuntime().gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                pool.resetPeakUsage();
+            }
+            Totals totals = new Totals(false);
+            playAll(player, hiddenWords, threads, bean, totals);
+            accuracy = (totals.accuracySum * 100.0) / totals.words;
+            times[i] = totals.elapsedTime / 1.0E9 / totals.guesses;
+            memories[i] = peakMemoryUsage();
+            scores[i] = (accuracy * accuracy) / Math.sqrt(times[i] * memories[i]);
+            System.out.println("Iteration " + (i + 1) + ": cpu time per guess " + df.format(times[i])
+                               + ", memory " + df.format(memories[i]) + ", score " + String.format("%.4f", scores[i]));
+        }
+
+        Statistics time = new Statistics(times);
+        Statistics memory = new Statistics(memories);
+        Statistics score = new Statistics(scores);
+        System.out.printf("Accuracy: %.4f\n", accuracy);
+        System.out.println("CPU time per guess in seconds: " + df.format(time.mean) + " +- " + df.format(time.error95())
+                           + " (95% CI), stddev " + df.format(time.stddev));
+        System.out.println("Used memory in bytes: " + df.format(memory.mean) + " +- " + df.format(memory.error95())
+                           + " (95% CI), stddev " + df.format(memory.stddev));
+        System.out.printf("Score: %.4f +- %.4f (95%% CI), stddev %.4f\n", score.mean, score.error95(), score.stddev);
+
+        if (saveBaselineFile != null) {
+            Properties baseline = new Properties();
+            baseline.setProperty("accuracy", Double.toString(accuracy));
+            saveMeasure(baseline, "time", time);
+            saveMeasure(baseline, "memory", memory);
+            saveMeasure(baseline, "score", score);
+            try (FileWriter out = new FileWriter(saveBaselineFile)) {
+                baseline.store(out, "EvalHangmanPlayer baseline over " + hiddenWords.size() + " hidden words");
+            }
+            System.out.println("Baseline saved to " + saveBaselineFile);
+        }
+
+        boolean regressed = false;
+        if (baselineFile != null) {
+            Properties baseline = new Properties();
+            try (FileReader in = new FileReader(baselineFile)) {
+                baseline.load(in);
+            }
+            System.out.println("Compared with baseline " + baselineFile + ":");
+            double baselineAccuracy = Double.parseDouble(baseline.getProperty("accuracy"));
+            boolean accuracyChanged = Math.abs(accuracy - baselineAccuracy) > 1e-9;
+            System.out.printf("  accuracy   %.4f vs %.4f: %s\n", accuracy, baselineAccuracy,
+                              accuracyChanged ? (accuracy < baselineAccuracy ? "REGRESSION" : "changed") : "same");
+            regressed |= accuracyChanged && accuracy < baselineAccuracy;
+            regressed |= compare(baseline, "time", time, false);
+            regressed |= compare(baseline, "memory", memory, false);
+            regressed |= compare(baseline, "score", score, true);
+            System.out.println(regressed ? "Result: NO-GO, regressed against the baseline" : "Result: GO");
+        }
+        return regressed;
+    }
+
+    private static void saveMeasure(Properties baseline, String name, Statistics measure)
+    {
+        baseline.setProperty(name + ".mean", Double.toString(measure.mean));
+        baseline.setProperty(name + ".error", Double.toString(measure.error95()));
+        baseline.setProperty(name + ".stddev", Double.toString(measure.stddev));
+        baseline.setProperty(name + ".n", Integer.toString(measure.n));
+    }
+
+    // Print how measure compares with the baseline's. Returns whether it is significantly worse.
+    private static boolean compare(Properties baseline, String name, Statistics measure, boolean higherIsBetter)
+    {
+        double mean = Double.parseDouble(baseline.getProperty(name + ".mean"));
+        double error = Double.parseDouble(baseline.getProperty(name + ".error"));
+        double change = measure.mean - mean;
+        // NaN intervals (a single iteration) never count as significant.
+        boolean significant = Math.abs(change) > measure.error95() + error;
+        boolean worse = higherIsBetter ? change < 0 : change > 0;
+        String verdict = !significant ? "no significant change" : worse ? "REGRESSION" : "improvement";
+        System.out.printf("  %-10s %+.2f%% (%.4g vs %.4g): %s\n", name, 100.0 * change / mean, measure.mean, mean, verdict);
+        return significant && worse;
+    }
+
     /*
      * return peak memory usage in bytes
      *
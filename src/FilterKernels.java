@@ -0,0 +1,86 @@
+import java.nio.ShortBuffer;
+
+// The inner loops of SurvivorSet: filtering the survivors of a WordGroup and summing letter frequencies.
+// This is the plain scalar version. With -Dhangman.simd=true, VectorKernels built ("compile.sh simd") and the
+// jdk.incubator.vector module available (java --add-modules jdk.incubator.vector ...), VectorKernels is used instead.
+// Most of a filter pass goes into counting the letters of removed words, which stays scalar either way, and
+// the Vector API needs a long warmup, so over a short evaluation run the scalar version is usually ahead.
+public class FilterKernels {
+
+    private static final FilterKernels SCALAR = new FilterKernels();
+
+    // Only looked up the first time options ask for simd.
+    private static class VectorHolder {
+        static final FilterKernels KERNELS = loadVector();
+    }
+
+    // The kernels options ask for. Stateless, so one instance serves every game.
+    static FilterKernels of(PlayerOptions options) {
+        return options.simd ? VectorHolder.KERNELS : SCALAR;
+    }
+
+    private static FilterKernels loadVector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (FilterKernels)Class.forName("VectorKernels").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Not built; stay scalar.
+            }
+        }
+        return SCALAR;
+    }
+
+    // Keep the words without letter. Words are survivors[from, to), or from to to - 1 if all is set.
+    // Kept words are written to survivors starting at from, the letters of dropped words are counted into removed.
+    // Returns the index after the last word kept. Ranges that do not overlap can be filtered at the same time.
+    public int filterBadLetter(WordGroup group, int[] survivors, int from, int to, boolean all, int letter, short[][] removed) {
+        int kept = from;
+        for (int n = from; n < to; n++) {
+            int word = all ? n : survivors[n];
+            if (group.containsLetter(word, letter)) {
+                group.countLetters(word, removed);
+            } else {
+                survivors[kept++] = word;
+            }
+        }
+        return kept;
+    }
+
+    // Same as filterBadLetter, but keeps the words with letter in exactly the fields marked in goodFields.
+    public int filterPattern(WordGroup group, int[] survivors, int from, int to, boolean all, int letter, long[] goodFields, short[][] removed) {
+        int kept = from;
+        for (int n = from; n < to; n++) {
+            int word = all ? n : survivors[n];
+            if (group.matchesPattern(word, letter, goodFields)) {
+                survivors[kept++] = word;
+            } else {
+                group.countLetters(word, removed);
+            }
+        }
+        return kept;
+    }
+
+    // totalFrequency[letter] += sum over the blanks (bit i for position i) of frequency - removed, except for guessed
+    // letters. Words of up to WordGroup.MAX_MASK_LENGTH letters.
+    public void letterTotals(ShortBuffer frequency, short[][] removed, int blanks, boolean[] guessedLetters, int[] totalFrequency) {
+        for (; blanks != 0; blanks &= blanks - 1) {
+            int i = Integer.numberOfTrailingZeros(blanks);
+            for(int j = 0; j < 26; j++) {
+                if(!guessedLetters[j])
+                    totalFrequency[j] += frequency.get(i * 26 + j) - removed[i][j];
+            }
+        }
+    }
+
+    // The same for the blanks of currentMask, for words of any length.
+    public void letterTotals(ShortBuffer frequency, short[][] removed, String currentMask, boolean[] guessedLetters, int[] totalFrequency) {
+        for(int i = 0; i < currentMask.length(); i++) {
+            if(currentMask.charAt(i) == ' ') {
+                for(int j = 0; j < 26; j++) {
+                    if(!guessedLetters[j])
+                        totalFrequency[j] += frequency.get(i * 26 + j) - removed[i][j];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+// The original heuristic: the unguessed letter with the highest positional count summed over the blanks.
+// Every CandidateSet computes it from its own bookkeeping in CandidateSet.getBestGuess().
+public class FrequencyStrategy implements GuessStrategy {
+
+    public char bestGuess(CandidateSet candidates, int blanks, boolean[] guessedLetters) {
+        return candidates.getBestGuess(blanks, guessedLetters);
+    }
+}
@@ -0,0 +1,33 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// JFR event for one timed guess() or feedback() call, committed by GuessMetrics.
+// Record with: java -XX:StartFlightRecording=filename=eval.jfr EvalHangmanPlayer ... -metrics report.json
+@Name("hangman.Guess")
+@Label("Hangman Guess")
+@Category("Hangman")
+@Description("One guess() or feedback() call of a HangmanSession")
+public class GuessEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Word Length")
+    int length;
+
+    @Label("Candidates")
+    @Description("Size of the candidate set the call started from")
+    int candidates;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime;
+
+    @Label("Allocated")
+    @DataAmount(DataAmount.BYTES)
+    long allocated;
+}
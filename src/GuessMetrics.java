@@ -0,0 +1,163 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.TreeMap;
+
+// Per-call instrumentation for EvalHangmanPlayer -metrics: CPU time and allocated bytes of every guess() and
+// feedback() call, in LatencyHistograms broken down by operation, word length and candidate-set size bucket.
+// Every call is also committed as a GuessEvent when a JFR recording is running.
+//
+// Not thread safe: each thread records into its own GuessMetrics, and they are added up at the end.
+public class GuessMetrics {
+
+    public static final int GUESS = 0;
+    public static final int FEEDBACK = 1;
+    private static final String[] OPERATIONS = { "guess", "feedback" };
+
+    // Length and size bucket of the rows that cover all of them.
+    private static final int ALL = -1;
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    private static class Row {
+        final int operation;
+        final int length;
+        final int sizeBucket;
+        final LatencyHistogram cpuTime = new LatencyHistogram();
+        final LatencyHistogram allocated = new LatencyHistogram();
+
+        Row(int operation, int length, int sizeBucket) {
+            this.operation = operation;
+            this.length = length;
+            this.sizeBucket = sizeBucket;
+        }
+    }
+
+    // Ordered by operation, length and size bucket, with the ALL rows first.
+    private final TreeMap<Long, Row> rows = new TreeMap<>();
+
+    // Bytes allocated by the current thread so far. Read before and after a call, outside of its timing.
+    public static long allocatedBytes() {
+        return threads.getCurrentThreadAllocatedBytes();
+    }
+
+    // Candidate-set sizes are bucketed by decade: bucket b holds sizes 10^b to 10^(b+1) - 1.
+    static int sizeBucket(int candidates) {
+        int bucket = 0;
+        for (int size = candidates; size >= 10; size /= 10) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private Row row(int operation, int length, int sizeBucket) {
+        long key = ((long)operation << 40) | ((long)(length + 1) << 20) | (sizeBucket + 1);
+        Row row = rows.get(key);
+        if (row == null) {
+            row = new Row(operation, length, sizeBucket);
+            rows.put(key, row);
+        }
+        return row;
+    }
+
+    public void record(int operation, int length, int candidates, long cpuNanos, long allocated) {
+        int bucket = sizeBucket(candidates);
+        for (Row row : new Row[] { row(operation, ALL, ALL), row(operation, length, ALL), row(operation, length, bucket) }) {
+            row.cpuTime.record(cpuNanos);
+            row.allocated.record(allocated);
+        }
+
+        GuessEvent event = new GuessEvent();
+        if (event.shouldCommit()) {
+            event.operation = OPERATIONS[operation];
+            event.length = length;
+            event.candidates = candidates;
+            event.cpuTime = cpuNanos;
+            event.allocated = allocated;
+            event.commit();
+        }
+    }
+
+    public void add(GuessMetrics other) {
+        for (Row theirs : other.rows.values()) {
+            Row row = row(theirs.operation, theirs.length, theirs.sizeBucket);
+            row.cpuTime.add(theirs.cpuTime);
+            row.allocated.add(theirs.allocated);
+        }
+    }
+
+    // One line per operation over all words: the tail latencies EvalHangmanPlayer's mean hides.
+    public void printSummary() {
+        for (int operation = GUESS; operation <= FEEDBACK; operation++) {
+            Row row = rows.get(((long)operation << 40));
+            if (row != null) {
+                System.out.printf("%-8s calls %d, cpu ns p50 %d p99 %d p99.9 %d max %d, bytes mean %.1f max %d%n",
+                        OPERATIONS[operation], row.cpuTime.count(), row.cpuTime.percentile(50),
+                        row.cpuTime.percentile(99), row.cpuTime.percentile(99.9), row.cpuTime.max(),
+                        row.allocated.mean(), row.allocated.max());
+            }
+        }
+    }
+
+    private static String label(int value) {
+        return value == ALL ? "all" : Integer.toString(value);
+    }
+
+    private static String sizeLabel(int bucket) {
+        if (bucket == ALL) {
+            return "all";
+        }
+        long low = 1;
+        for (int i = 0; i < bucket; i++) {
+            low *= 10;
+        }
+        return (bucket == 0 ? 0 : low) + "-" + (low * 10 - 1);
+    }
+
+    private static final String[] COLUMNS = {
+        "operation", "length", "candidates", "count", "cpuMeanNs", "cpuP50Ns", "cpuP90Ns", "cpuP99Ns", "cpuP999Ns",
+        "cpuMaxNs", "bytesMean", "bytesP99", "bytesMax"
+    };
+
+    private static Object[] values(Row row) {
+        return new Object[] {
+            OPERATIONS[row.operation], label(row.length), sizeLabel(row.sizeBucket), row.cpuTime.count(),
+            Math.round(row.cpuTime.mean()), row.cpuTime.percentile(50), row.cpuTime.percentile(90),
+            row.cpuTime.percentile(99), row.cpuTime.percentile(99.9), row.cpuTime.max(),
+            Math.round(row.allocated.mean()), row.allocated.percentile(99), row.allocated.max()
+        };
+    }
+
+    // Write every row to file, as JSON if it ends in .json and as CSV otherwise.
+    public void write(String file) throws IOException {
+        boolean json = file.endsWith(".json");
+        try (PrintWriter out = new PrintWriter(file)) {
+            if (json) {
+                out.println("[");
+            } else {
+                out.println(String.join(",", COLUMNS));
+            }
+            int n = 0;
+            for (Row row : rows.values()) {
+                Object[] values = values(row);
+                StringBuilder line = new StringBuilder();
+                for (int i = 0; i < values.length; i++) {
+                    if (json) {
+                        line.append(i == 0 ? "  {" : ", ").append('"').append(COLUMNS[i]).append("\": ");
+                        line.append(values[i] instanceof String ? "\"" + values[i] + "\"" : values[i]);
+                    } else {
+                        line.append(i == 0 ? "" : ",").append(values[i]);
+                    }
+                }
+                if (json) {
+                    line.append(++n < rows.size() ? "}," : "}");
+                }
+                out.println(line);
+            }
+            if (json) {
+                out.println("]");
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+// Picks the next letter to guess from a game's candidates.
+//
+// A strategy belongs to one HangmanSession and may keep scratch state between calls, so it is never shared
+// between threads. The first guess of a word (WordGroup.bestFirstGuess) and the PolicyTable are always
+// precomputed with the frequency heuristic, whatever the strategy.
+public interface GuessStrategy {
+
+    // The letter to guess next, out of those not in guessedLetters, for a word whose positions in blanks are still
+    // blank (bit i for position i).
+    char bestGuess(CandidateSet candidates, int blanks, boolean[] guessedLetters);
+
+    // The strategy picked with -Dhangman.strategy.
+    static GuessStrategy create(PlayerOptions options) {
+        if (options.strategy == PlayerOptions.Strategy.ENTROPY) {
+            return new EntropyStrategy(options.strategyBudgetNanos);
+        }
+        return new FrequencyStrategy();
+    }
+}
@@ -0,0 +1,341 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+  Microbenchmarks for the player's hot paths.
+
+  Usage: HangmanBenchmark wordFile [-hidden file,file] [-warmup N] [-iterations N] [-time ms]
+                         [-lengths 5,8,11] [-sizes 1000000,1000,20] [benchmark ...]
+
+  Benchmarks (all of them when none are named):
+     constructor          new HangmanPlayer(wordFile)
+     game                 guess() + feedback() over the hidden words, per guess
+     guess                guess() in the middle of a game
+     reset                SurvivorSet.reset(), starting a word              per length
+     restore              SurvivorSet.restore() of a mid-game snapshot      per length and candidate-set size
+     processBadLetter     restore + processBadLetter()                      per length and candidate-set size
+     processGoodPattern   restore + processGoodPattern()                    per length and candidate-set size
+     getBestGuess         getBestGuess()                                    per length and candidate-set size
+
+  The candidate sets come from replaying the hidden words of each length (hiddenWords1.txt and hiddenWords2.txt by
+  default) until no more than size candidates are left; the size column shows the average actual size.
+  restore is reported on its own so it can be subtracted from the two filter benchmarks.
+
+  Like JMH, every benchmark runs warmup iterations first, then measured iterations of a fixed time each, and reports
+  the mean with its 99.9% confidence interval, plus bytes allocated per operation (ThreadMXBean).
+  PlayerOptions are picked up from -Dhangman.* as usual; -Dhangman.parallelFilter also applies to the SurvivorSets
+  of the filter benchmarks, so times there are wall clock over all the chunks. With -Dhangman.engine=dawg only the
+  game, guess and constructor benchmarks run, since the groups have no packed words left to build SurvivorSets on.
+*/
+public class HangmanBenchmark {
+
+    // One benchmarked operation. Returns how many operations it performed.
+    private interface Operation {
+        int run();
+    }
+
+    // -Dhangman.parallelFilter and -Dhangman.simd, for the SurvivorSets made here.
+    private static final PlayerOptions OPTIONS = new PlayerOptions();
+
+    // Results go here so the JIT cannot drop the work.
+    static volatile long sink;
+
+    private int warmupIterations = 5;
+    private int measuredIterations = 10;
+    private long iterationNanos = 500_000_000L;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: HangmanBenchmark wordFile [-hidden file,file] [-warmup N] [-iterations N] [-time ms] "
+                    + "[-lengths 5,8,11] [-sizes 1000000,1000,20] [benchmark ...]");
+            System.exit(-1);
+        }
+        String wordFile = args[0];
+        String[] hiddenFiles = { "hiddenWords1.txt", "hiddenWords2.txt" };
+        int[] lengths = { 5, 8, 11 };
+        int[] sizes = { Integer.MAX_VALUE, 1000, 20 };
+        List<String> selected = new ArrayList<>();
+        HangmanBenchmark benchmark = new HangmanBenchmark();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "-hidden": hiddenFiles = args[++i].split(","); break;
+                case "-warmup": benchmark.warmupIterations = Integer.parseInt(args[++i]); break;
+                case "-iterations": benchmark.measuredIterations = Integer.parseInt(args[++i]); break;
+                case "-time": benchmark.iterationNanos = Long.parseLong(args[++i]) * 1_000_000L; break;
+                case "-lengths": lengths = parseInts(args[++i]); break;
+                case "-sizes": sizes = parseInts(args[++i]); break;
+                default: selected.add(args[i]);
+            }
+        }
+
+        List<String> hiddenWords = new ArrayList<>();
+        for (String file : hiddenFiles) {
+            try (BufferedReader input = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = input.readLine()) != null) {
+                    hiddenWords.add(line.trim().toLowerCase());
+                }
+            }
+        }
+
+        System.out.printf("%-20s %6s %8s %14s %12s %12s%n", "Benchmark", "length", "size", "ns/op", "error", "B/op");
+        HangmanPlayer player = new HangmanPlayer(wordFile);
+
+        if (selected.isEmpty() || selected.contains("constructor")) {
+            benchmark.report("constructor", -1, -1, () -> {
+                sink += new HangmanPlayer(wordFile).hashCode();
+                return 1;
+            });
+        }
+        if (selected.isEmpty() || selected.contains("game")) {
+            int[] next = { 0 };
+            benchmark.report("game", -1, -1, () -> {
+                String word = hiddenWords.get(next[0]++ % hiddenWords.size());
+                return play(player, word);
+            });
+        }
+        if (selected.isEmpty() || selected.contains("guess")) {
+            String word = hiddenWords.get(0);
+            String blank = " ".repeat(word.length());
+            player.guess(blank, true);
+            player.feedback(false, blank);
+            benchmark.report("guess", -1, -1, () -> {
+                sink += player.guess(blank, false);
+                return 1;
+            });
+        }
+
+        for (int length : lengths) {
+            WordGroup group = player.wordGroups().get(length);
+            if (group == null || group.words == null) {
+                // The SurvivorSets below need the packed words, which the dawg engine drops.
+                continue;
+            }
+            List<String> words = new ArrayList<>();
+            for (String word : hiddenWords) {
+                if (word.length() == length) {
+                    words.add(word);
+                }
+            }
+            if (selected.isEmpty() || selected.contains("reset")) {
+                SurvivorSet set = new SurvivorSet();
+                benchmark.report("reset", length, group.count, () -> {
+                    set.reset(group, OPTIONS);
+                    return 1;
+                });
+            }
+            for (int size : sizes) {
+                List<Fixture> fixtures = new ArrayList<>();
+                for (String word : words) {
+                    Fixture fixture = Fixture.build(group, word, size);
+                    if (fixture != null && fixtures.size() < 16) {
+                        fixtures.add(fixture);
+                    }
+                }
+                if (fixtures.isEmpty()) {
+                    continue;
+                }
+                long candidates = 0;
+                for (Fixture fixture : fixtures) {
+                    candidates += fixture.size;
+                }
+                benchmark.runFixtures(selected, group, fixtures, (int)(candidates / fixtures.size()));
+            }
+        }
+    }
+
+    private static int[] parseInts(String list) {
+        return Arrays.stream(list.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    // Plays word the way EvalHangmanPlayer does. Returns the number of guesses.
+    private static int play(HangmanPlayer player, String word) {
+        char[] current = new char[word.length()];
+        Arrays.fill(current, ' ');
+        boolean newWord = true;
+        int misses = 0;
+        int guesses = 0;
+        while (misses < 6) {
+            char guess = player.guess(new String(current), newWord);
+            newWord = false;
+            guesses++;
+            boolean correct = false;
+            for (int i = 0; i < word.length(); i++) {
+                if (word.charAt(i) == guess && current[i] != guess) {
+                    current[i] = guess;
+                    correct = true;
+                }
+            }
+            if (!correct) {
+                misses++;
+            }
+            String currentWord = new String(current);
+            player.feedback(correct, currentWord);
+            if (currentWord.indexOf(' ') == -1) {
+                break;
+            }
+        }
+        return guesses;
+    }
+
+    // A mid-game state of one hidden word, with a wrong and a right letter to try next.
+    private static class Fixture {
+        WordGroup group;
+        CandidateSet.Snapshot snapshot;
+        int size;
+        String mask;
+        boolean[] guessed = new boolean[26];
+        char badLetter;
+        char goodLetter;
+        String goodPattern;
+        // Holds the state itself, for getBestGuess.
+        SurvivorSet set = new SurvivorSet();
+
+        // Replays the player's guesses on word until at most size candidates are left. null if the word is
+        // solved first, or there is no wrong or right letter left to try.
+        static Fixture build(WordGroup group, String word, int size) {
+            Fixture fixture = new Fixture();
+            fixture.group = group;
+            SurvivorSet set = fixture.set;
+            set.reset(group, OPTIONS);
+            char[] mask = new char[word.length()];
+            Arrays.fill(mask, ' ');
+            char guess = group.bestFirstGuess;
+            boolean filtered = false;
+            while (set.size() > size) {
+                fixture.guessed[guess - 'a'] = true;
+                if (word.indexOf(guess) != -1) {
+                    for (int i = 0; i < word.length(); i++) {
+                        if (word.charAt(i) == guess) {
+                            mask[i] = guess;
+                        }
+                    }
+                    if (new String(mask).indexOf(' ') == -1) {
+                        return null;
+                    }
+                    set.processGoodPattern(guess, new String(mask));
+                } else {
+                    set.processBadLetter(guess);
+                }
+                filtered = true;
+                guess = set.getBestGuess(new String(mask), fixture.guessed);
+            }
+            fixture.size = set.size();
+            fixture.mask = new String(mask);
+            fixture.snapshot = filtered ? set.snapshot() : null;
+
+            for (char letter = 'a'; letter <= 'z'; letter++) {
+                if (fixture.guessed[letter - 'a']) {
+                    continue;
+                }
+                if (word.indexOf(letter) == -1) {
+                    if (fixture.badLetter == 0) {
+                        fixture.badLetter = letter;
+                    }
+                } else if (fixture.goodLetter == 0) {
+                    fixture.goodLetter = letter;
+                    char[] pattern = mask.clone();
+                    for (int i = 0; i < word.length(); i++) {
+                        if (word.charAt(i) == letter) {
+                            pattern[i] = letter;
+                        }
+                    }
+                    fixture.goodPattern = new String(pattern);
+                }
+            }
+            return fixture.badLetter == 0 || fixture.goodLetter == 0 ? null : fixture;
+        }
+
+        // Put set back into this state.
+        void restore(SurvivorSet target) {
+            target.reset(group, OPTIONS);
+            if (snapshot != null) {
+                target.restore(snapshot);
+            }
+        }
+    }
+
+    private void runFixtures(List<String> selected, WordGroup group, List<Fixture> fixtures, int size) {
+        SurvivorSet set = new SurvivorSet();
+        int[] next = { 0 };
+        if (selected.isEmpty() || selected.contains("restore")) {
+            report("restore", group.length, size, () -> {
+                fixtures.get(next[0]++ % fixtures.size()).restore(set);
+                return 1;
+            });
+        }
+        if (selected.isEmpty() || selected.contains("processBadLetter")) {
+            report("processBadLetter", group.length, size, () -> {
+                Fixture fixture = fixtures.get(next[0]++ % fixtures.size());
+                fixture.restore(set);
+                set.processBadLetter(fixture.badLetter);
+                sink += set.size();
+                return 1;
+            });
+        }
+        if (selected.isEmpty() || selected.contains("processGoodPattern")) {
+            report("processGoodPattern", group.length, size, () -> {
+                Fixture fixture = fixtures.get(next[0]++ % fixtures.size());
+                fixture.restore(set);
+                set.processGoodPattern(fixture.goodLetter, fixture.goodPattern);
+                sink += set.size();
+                return 1;
+            });
+        }
+        if (selected.isEmpty() || selected.contains("getBestGuess")) {
+            report("getBestGuess", group.length, size, () -> {
+                Fixture fixture = fixtures.get(next[0]++ % fixtures.size());
+                sink += fixture.set.getBestGuess(fixture.mask, fixture.guessed);
+                return 1;
+            });
+        }
+    }
+
+    // Runs operation for one iteration. Returns {nanoseconds per operation, bytes allocated per operation}.
+    private double[] iteration(Operation operation) {
+        long thread = Thread.currentThread().getId();
+        long operations = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long elapsed = 0;
+        // Check the clock only every batch calls, so short operations are not dominated by nanoTime().
+        int batch = 1;
+        do {
+            long before = elapsed;
+            for (int i = 0; i < batch; i++) {
+                operations += operation.run();
+            }
+            elapsed = System.nanoTime() - start;
+            if (elapsed - before < 10_000 && batch < 1024) {
+                batch *= 2;
+            }
+        } while (elapsed < iterationNanos);
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        return new double[] { (double)elapsed / operations, (double)allocated / operations };
+    }
+
+    private void report(String name, int length, int size, Operation operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(operation);
+        }
+        double[] times = new double[measuredIterations];
+        double[] bytes = new double[measuredIterations];
+        for (int i = 0; i < measuredIterations; i++) {
+            double[] result = iteration(operation);
+            times[i] = result[0];
+            bytes[i] = result[1];
+        }
+        Statistics time = new Statistics(times);
+        Statistics allocation = new Statistics(bytes);
+        System.out.printf("%-20s %6s %8s %14.1f %12.1f %12.1f%n", name, length < 0 ? "" : Integer.toString(length),
+                size < 0 ? "" : Integer.toString(size), time.mean, time.error(), allocation.mean);
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/*
+  Load generator for HangmanServer: replays hidden word files against it the way EvalHangmanPlayer plays them.
+
+  Usage: HangmanLoadClient [-port N | -unix socketPath] [-connections N] [-idle N] [-rounds N] [hiddenWordFile ...]
+
+  The hidden words (hiddenWords1.txt and hiddenWords2.txt by default) are split over the connections, and each
+  connection plays its share on one session, rounds times over. -idle opens that many extra sessions first and
+  leaves them idle for the whole run, to load the server with sessions that have no thread.
+
+  Reports accuracy, which must match EvalHangmanPlayer's, words per second and the round trip time per request.
+*/
+public class HangmanLoadClient {
+
+    private static int port = HangmanServer.DEFAULT_PORT;
+    private static String unixPath = null;
+
+    // Totals of one connection.
+    private static class Result {
+        long words = 0;
+        double accuracySum = 0;
+        long requests = 0;
+        long requestNanos = 0;
+        long maxRequestNanos = 0;
+
+        void add(Result other) {
+            words += other.words;
+            accuracySum += other.accuracySum;
+            requests += other.requests;
+            requestNanos += other.requestNanos;
+            maxRequestNanos = Math.max(maxRequestNanos, other.maxRequestNanos);
+        }
+    }
+
+    // One open connection to the server.
+    private static class Connection implements AutoCloseable {
+        final SocketChannel channel;
+        final BufferedReader in;
+        final BufferedWriter out;
+        final Result result = new Result();
+
+        Connection() throws IOException {
+            if (unixPath != null) {
+                channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+                channel.connect(UnixDomainSocketAddress.of(Path.of(unixPath)));
+            } else {
+                channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+            in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.US_ASCII));
+            out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.US_ASCII));
+        }
+
+        // Send one request and return the response after "OK ".
+        String request(String line) throws IOException {
+            long start = System.nanoTime();
+            out.write(line);
+            out.write('\n');
+            out.flush();
+            String response = in.readLine();
+            long elapsed = System.nanoTime() - start;
+            result.requests++;
+            result.requestNanos += elapsed;
+            result.maxRequestNanos = Math.max(result.maxRequestNanos, elapsed);
+            if (response == null || !response.startsWith("OK")) {
+                throw new IOException(line + ": " + response);
+            }
+            return response.length() > 3 ? response.substring(3) : "";
+        }
+
+        public void close() throws IOException {
+            out.write("QUIT\n");
+            out.flush();
+            channel.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int connections = 4;
+        int idle = 0;
+        int rounds = 1;
+        List<String> hiddenFiles = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-port": port = Integer.parseInt(args[++i]); break;
+                case "-unix": unixPath = args[++i]; break;
+                case "-connections": connections = Integer.parseInt(args[++i]); break;
+                case "-idle": idle = Integer.parseInt(args[++i]); break;
+                case "-rounds": rounds = Integer.parseInt(args[++i]); break;
+                default: hiddenFiles.add(args[i]);
+            }
+        }
+        if (hiddenFiles.isEmpty()) {
+            hiddenFiles = Arrays.asList("hiddenWords1.txt", "hiddenWords2.txt");
+        }
+
+        List<String> hiddenWords = new ArrayList<>();
+        for (String file : hiddenFiles) {
+            try (BufferedReader input = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = input.readLine()) != null) {
+                    hiddenWords.add(line.trim().toLowerCase());
+                }
+            }
+        }
+
+        try (Connection control = new Connection()) {
+            List<String> idleSessions = new ArrayList<>();
+            for (int i = 0; i < idle; i++) {
+                idleSessions.add(control.request("NEW"));
+            }
+            System.out.println("Server has " + control.request("STATS"));
+
+            ExecutorService pool = HangmanServer.newThreadPerTaskExecutor();
+            List<Future<Result>> futures = new ArrayList<>();
+            int chunk = (hiddenWords.size() + connections - 1) / connections;
+            long start = System.nanoTime();
+            for (int from = 0; from < hiddenWords.size(); from += chunk) {
+                List<String> words = hiddenWords.subList(from, Math.min(from + chunk, hiddenWords.size()));
+                int replays = rounds;
+                futures.add(pool.submit(() -> {
+                    try (Connection connection = new Connection()) {
+                        String id = connection.request("NEW");
+                        for (int round = 0; round < replays; round++) {
+                            for (String word : words) {
+                                play(connection, id, word);
+                            }
+                        }
+                        connection.request("END " + id);
+                        return connection.result;
+                    }
+                }));
+            }
+            Result total = new Result();
+            for (Future<Result> future : futures) {
+                try {
+                    total.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IOException(e.getCause());
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1E9;
+            pool.shutdown();
+
+            System.out.printf("Accuracy: %.4f%n", total.accuracySum * 100.0 / total.words);
+            System.out.printf("Words: %d in %.3f s, %.0f words/s over %d connections%n",
+                    total.words, seconds, total.words / seconds, futures.size());
+            System.out.printf("Round trip per request: %.1f us mean, %.1f us max over %d requests%n",
+                    total.requestNanos / 1E3 / total.requests, total.maxRequestNanos / 1E3, total.requests);
+
+            for (String id : idleSessions) {
+                control.request("END " + id);
+            }
+        }
+    }
+
+    // Play word on session id, with the same rules as EvalHangmanPlayer.
+    private static void play(Connection connection, String id, String word) throws IOException {
+        char[] current = new char[word.length()];
+        Arrays.fill(current, '_');
+        int misses = 0;
+        boolean solved = false;
+        char guess = connection.request("WORD " + id + " " + word.length()).charAt(0);
+        while (true) {
+            boolean correct = false;
+            if (new String(current).indexOf(guess) == -1) {
+                for (int i = 0; i < word.length(); i++) {
+                    if (word.charAt(i) == guess) {
+                        current[i] = guess;
+                        correct = true;
+                    }
+                }
+            }
+            if (!correct) {
+                misses++;
+            }
+            String currentWord = new String(current);
+            solved = currentWord.indexOf('_') == -1;
+            connection.request("FEEDBACK " + id + " " + (correct ? 1 : 0) + " " + currentWord);
+            if (solved || misses == 6) {
+                break;
+            }
+            guess = connection.request("GUESS " + id + " " + currentWord).charAt(0);
+        }
+        connection.result.words++;
+        connection.result.accuracySum += 1.0 - misses / 6.0;
+    }
+}
@@ -8,150 +8,97 @@
   Section: 23
 
   Description of the overall algorithm:
-     Groups input words into different ArrayLists by string length, using a helper class called WordGroup.
-     Since words are always going to be lowercase string length, we use byte[] arrays instead of String to save on RAM.
+     Groups input words by string length, using a helper class called WordGroup.
+     The word file is memory mapped and parsed byte by byte (WordLoader), so no String is created per word.
+     Since words are always going to be lowercase letters, we pack each letter into 5 bits instead of using String to save on RAM.
      After all, Java uses U16 encoding for Strings, which is 2 bytes per character. Unnecessary.
-
-     Each WordGroup contains a frequencyMap short[26] array that stores the frequency of each unique letter in the words.
-
-     When a new Word is selected, a GameState is created for it which copies the WordGroup for the known string length.
+     All words of one length live back to back in a single long[] inside their WordGroup, so filtering is a linear scan.
+     With -Dhangman.lazyGroups=true the words are only bucketed by length up front, and a WordGroup is built the
+     first time a word of its length comes up (plus any -Dhangman.warmLengths ahead of time).
+
+     Each WordGroup contains a frequencyMap of 26 shorts per position that stores the frequency of each unique letter in the words.
+     With -Dhangman.offHeap=true the words and the frequencyMap of every group are moved into direct buffers once
+     built, so the dictionary is off the Java heap and only the small per-game state is left for the GC.
+
+     When a new Word is selected, the GameState is reset for the WordGroup of the known string length.
+     WordGroups are shared and never modified: the GameState only tracks which of the group's words survive
+     (SurvivorSet) and how many of each letter were filtered out, and reuses that storage for every word.
+     Alternatively (-Dhangman.engine=bitset) the GameState only holds a bitset of surviving words over a per-length
+     BitsetIndex, so filtering is done with AND / AND-NOT over 64 words at a time.
+     With -Dhangman.engine=dawg each length is instead compiled into a minimal automaton (Dawg), and the packed words
+     are dropped once it is built. A game then only keeps the letters still allowed at each position, and counts the
+     candidates and their letter frequencies by walking the paths that use allowed letters (DawgCandidates).
+     With -Dhangman.parallelFilter=N the arena engine splits filter passes over N or more survivors into chunks on
+     the common ForkJoinPool (ParallelFilter); smaller, late game sets stay on the calling thread.
+
+     The word file may also be a DictionarySnapshot (java DictionarySnapshot words.txt words.snap), which holds the
+     WordGroups already built. It is memory mapped and the groups read their words straight from the file.
+
+     With a precomputed PolicyTable (-Dhangman.policy=file) the first guesses of a word are table lookups, and the
+     candidates are only filtered once the game leaves the table.
+
+     With a StateCache (-Dhangman.cacheBytes=budget) games share the candidates they filtered: a word that gets
+     the same feedback as an earlier word of its length restores that word's candidates instead of filtering again.
 
      Guesses are based off of most frequent letters in the WordGroup's frequencyMap that have yet to be guessed.
-     On good and bad guesses, incorrect candidates are filtered out of the words list and the frequencyMap is updated.
+     On good and bad guesses, incorrect candidates are filtered out of the survivors and the frequencies are updated.
+     The heuristic is the default GuessStrategy. -Dhangman.strategy=entropy instead scores each letter by how it
+     partitions the candidates, whenever that fits in the per-guess time budget.
+
+     The GameState keeps track of guessed letters and the surviving candidates for the current word.
+     Besides guess(String, boolean) and feedback(boolean, String), a session takes guess(length, isNewWord) and
+     feedback(letter, revealed positions as a bitmask), which build no Strings. Once warm they only allocate the
+     candidate storage of a new word, which is let go again when its game ends.
 
-     The GameState keeps track of guessed letters and holds on to the (modified) WordGroup for the current word.
+     Everything that is shared lives in a WordDictionary, and a game lives in a HangmanSession, so one dictionary can
+     serve many games on many threads at once (player.newSession()). HangmanPlayer is the session the evaluator
+     creates, together with its own dictionary. HangmanServer serves sessions over a local socket.
+     player.reload() swaps in a new word list (or a delta of added and removed words) built in the background;
+     games in progress finish on the dictionary they started with.
 
 */
 
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Future;
 
-public class HangmanPlayer
+public class HangmanPlayer extends HangmanSession
 {
 
-    // Since the only thing we know about our given word is the length, we can store all words of
-    // a given length in a hashmap
-
-    private final HashMap<Integer, WordGroup> wordsByLength = new HashMap<>();
-
-    private WordGroup grp;
-
-    private Runtime runtime = null;
-
-    boolean isNewWord = true;
-
-    private static class GameState {
-        boolean[] guessedLetters = new boolean[26];
-        WordGroup wordGroup = null;
-
-        char nextBestGuess = '0';
-
-        public GameState(WordGroup group) {
-            wordGroup = new WordGroup(group);
-        }
+    // initialize HangmanPlayer with a file of English words
+    public HangmanPlayer(String wordFile)
+    {
+        this(wordFile, new PlayerOptions());
     }
 
-    private GameState gameState = null;
-
+    public HangmanPlayer(String wordFile, PlayerOptions options)
+    {
+        super(new LiveDictionary(new WordDictionary(wordFile, options)));
+        Runtime.getRuntime().gc();
+    }
 
-    // initialize HangmanPlayer with a file of English words
-    public HangmanPlayer(String wordFile)
+    // Another game on this player's dictionary, e.g. for another thread. The dictionary is only loaded once.
+    public HangmanSession newSession()
     {
-        this.runtime = Runtime.getRuntime();
-        HashSet<String> knownWords = new HashSet<>();
-        try {
-            FileReader hiddenWordFile = new FileReader(wordFile);
-            BufferedReader input = new BufferedReader(hiddenWordFile, 256 * 1024);
-            runtime.gc();
-            while(true) {
-                // insert into wordsByLength's wordgroup based on line's string length.
-                String line = input.readLine();
-                if(line == null) {
-                    break;
-                }
-                line = line.toLowerCase();
-                int length = line.length();
-                if(knownWords.contains(line)) {
-                    continue;
-                }
-                wordsByLength.computeIfAbsent(length, k -> new WordGroup(length)).insert(line);
-                knownWords.add(line);
-            }
-        } catch (Exception e) {
-            System.out.println("Error: " + e);
-
-        }
-
-        // Initialize all WordGroups
-        boolean[] guessedLetters = new boolean[26];
-        for(HashMap.Entry<Integer, WordGroup> entry : wordsByLength.entrySet()) {
-            entry.getValue().initialize(" ".repeat(entry.getKey()), guessedLetters);
-        }
-        runtime.gc();
+        return source.newSession();
     }
 
-    // based on the current (partial or intitially blank) word
-    //    guess a letter
-    // currentWord: current word, currenWord.length has the length of the hidden word
-    // isNewWord: indicates a new hidden word
-    // returns the guessed letter
-    // assume all letters are in lower case
-    public char guess(String currentWord, boolean isNewWord)
+    // Replace the word list in the background, see LiveDictionary. This player and its sessions pick the new one up
+    // with their next word.
+    public Future<WordDictionary> reload(String wordFile)
     {
-        if(isNewWord) {
-            this.isNewWord = true;
-            int length = currentWord.length();
-            this.grp = wordsByLength.get(length);
-            assert this.grp != null;
-            return this.grp.bestFirstGuess;
-        } else {
-            return gameState.nextBestGuess;
-        }
+        return source.reload(wordFile);
     }
 
-    // feedback on the guessed letter
-    // isCorrectGuess: true if the guessed letter is one of the letters in the hidden word
-    // currentWord: partially filled or blank word
-    //
-    // Case       isCorrectGuess      currentWord
-    // a.         true                partial word with the guessed letter
-    //                                   or the whole word if the guessed letter was the
-    //                                   last letter needed
-    // b.         false               partial word without the guessed letter
-    public void feedback(boolean isCorrectGuess, String currentWord)
+    public Future<WordDictionary> reload(Collection<String> added, Collection<String> removed)
     {
-        char lastGuess = '0';
-        if(this.isNewWord) {
-            // Calling the garbage collector manually to free up memory.
-            // This has a dramatic impact on the memory usage of the program.
-            gameState = new GameState(this.grp);
-            lastGuess = this.grp.bestFirstGuess;
-            this.grp = null;
-            // Call the garbage collector to free up memory.
-            runtime.gc();
-            this.isNewWord = false;
-        } else {
-            lastGuess = gameState.nextBestGuess;
-        }
-        gameState.guessedLetters[lastGuess - 'a'] = true;
-
-        if(isCorrectGuess) {
-            if(currentWord.indexOf(' ') == -1) {
-                // We have guessed the word.
-                return;
-            }
-            gameState.wordGroup.processGoodPattern(lastGuess, currentWord);
-        } else {
-            // Iterate through GameState.possibleEndNodes and remove any nodes that contain the bad letter in the key.
-            gameState.wordGroup.processBadLetter(lastGuess);
-        }
-
-        // Set next best guess.
-        gameState.nextBestGuess = gameState.wordGroup.getBestGuess(currentWord, gameState.guessedLetters);
+        return source.reload(added, removed);
+    }
 
+    // All WordGroups by word length. Shared by every game; do not modify.
+    Map<Integer, WordGroup> wordGroups() {
+        return source.current().wordGroups();
     }
 
 }
@@ -0,0 +1,262 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+  Hosts HangmanSessions over a local socket, all sharing one loaded WordDictionary.
+
+  Usage: HangmanServer wordFile [-port N | -unix socketPath]
+
+  Listens on 127.0.0.1:7010 by default, or on a Unix domain socket. PlayerOptions come from -Dhangman.* as usual.
+
+  Line protocol, one request and one response per line. Words are sent with '_' for the blanks.
+     NEW                          -> OK id                  start a session
+     WORD id length               -> OK letter              first guess of a new hidden word
+     GUESS id word                -> OK letter              next guess
+     FEEDBACK id 1|0 word         -> OK                     was the last guess correct, and the word after it
+     END id                       -> OK                     drop the session
+     RELOAD wordFile              -> OK reloading           swap in a new word list, built in the background
+     DELTA +word -word ...        -> OK reloading           add and remove words, built in the background
+                                                            (check STATS for whether it worked)
+     STATS                        -> OK sessions N reload R
+                                                            R: the time the last reload finished and "ok", or
+                                                            "failed" and why; "none" before any reload
+     QUIT                                                   close the connection
+  Anything else, or an unknown id, gets ERR and a message.
+
+  After a reload, each session switches to the new word list at its next WORD; games in progress are not disturbed.
+
+  Sessions are keyed by id, not by connection: a connection only has a thread while it is open, and an idle session
+  is just its HangmanSession (a few hundred bytes between words, plus the candidates of a word in progress).
+  A session that gets no request for IDLE_TIMEOUT_NANOS (10 minutes) is dropped as if it had been ENDed, so a
+  client that goes away without END does not keep its sessions forever. Its id then gets ERR.
+  Every connection gets its own virtual thread when the JVM has them (Java 21+), and a pooled platform thread
+  otherwise.
+*/
+public class HangmanServer {
+
+    public static final int DEFAULT_PORT = 7010;
+
+    public static final long IDLE_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    // Idle sessions are looked for at most this often (or every timeout, if that is shorter), when a new session
+    // starts.
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final class Entry {
+        final HangmanSession session;
+        // System.nanoTime() of the last request for this session.
+        volatile long lastUsed = System.nanoTime();
+
+        Entry(HangmanSession session) {
+            this.session = session;
+        }
+    }
+
+    private final LiveDictionary dictionary;
+    private final ConcurrentHashMap<Long, Entry> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final long idleTimeoutNanos;
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime());
+
+    public HangmanServer(LiveDictionary dictionary) {
+        this(dictionary, IDLE_TIMEOUT_NANOS);
+    }
+
+    public HangmanServer(LiveDictionary dictionary, long idleTimeoutNanos) {
+        this.dictionary = dictionary;
+        this.idleTimeoutNanos = idleTimeoutNanos;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 3) {
+            System.err.println("Usage: HangmanServer wordFile [-port N | -unix socketPath]");
+            System.exit(-1);
+        }
+        HangmanServer server = new HangmanServer(new LiveDictionary(new WordDictionary(args[0], new PlayerOptions())));
+
+        ServerSocketChannel listener;
+        if (args.length == 3 && args[1].equals("-unix")) {
+            Path path = Path.of(args[2]);
+            Files.deleteIfExists(path);
+            listener = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            listener.bind(UnixDomainSocketAddress.of(path));
+        } else {
+            int port = args.length == 3 ? Integer.parseInt(args[2]) : DEFAULT_PORT;
+            listener = ServerSocketChannel.open();
+            listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        }
+        System.out.println("Listening on " + listener.getLocalAddress());
+        server.serve(listener);
+    }
+
+    // One task per connection, on virtual threads when the JVM has them.
+    static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            // Looked up reflectively so this still compiles and runs on Java 17.
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void serve(ServerSocketChannel listener) throws IOException {
+        ExecutorService connections = newThreadPerTaskExecutor();
+        try {
+            while (true) {
+                SocketChannel connection = listener.accept();
+                if (connection.getLocalAddress() instanceof InetSocketAddress) {
+                    // Every response is one small write that the client waits for.
+                    connection.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                connections.execute(() -> handle(connection));
+            }
+        } finally {
+            connections.shutdown();
+        }
+    }
+
+    private void handle(SocketChannel connection) {
+        try (connection;
+             BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(connection), StandardCharsets.US_ASCII));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(connection), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = in.readLine()) != null && !line.equals("QUIT")) {
+                out.write(respond(line));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            // The client went away; its sessions stay until it ends them or they time out.
+        }
+    }
+
+    // Answer one request line.
+    String respond(String line) {
+        String[] request = line.trim().split(" ");
+        try {
+            switch (request[0]) {
+                case "NEW": {
+                    long id = nextId.getAndIncrement();
+                    sessions.put(id, new Entry(dictionary.newSession()));
+                    dropIdleSessions();
+                    return "OK " + id;
+                }
+                case "WORD": {
+                    HangmanSession session = session(request[1]);
+                    int length = Integer.parseInt(request[2]);
+                    if (dictionary.current().group(length) == null) {
+                        return "ERR no words of length " + length;
+                    }
+                    // A session is not thread safe, and nothing stops two connections from sharing an id.
+                    synchronized (session) {
+                        return "OK " + session.guess(" ".repeat(length), true);
+                    }
+                }
+                case "GUESS": {
+                    HangmanSession session = session(request[1]);
+                    String word = request[2].replace('_', ' ');
+                    synchronized (session) {
+                        return "OK " + session.guess(word, false);
+                    }
+                }
+                case "FEEDBACK": {
+                    HangmanSession session = session(request[1]);
+                    boolean correct = request[2].equals("1");
+                    String word = request[3].replace('_', ' ');
+                    synchronized (session) {
+                        session.feedback(correct, word);
+                    }
+                    return "OK";
+                }
+                case "END": {
+                    if (sessions.remove(Long.parseLong(request[1])) == null) {
+                        return "ERR unknown session " + request[1];
+                    }
+                    return "OK";
+                }
+                case "RELOAD":
+                    dictionary.reload(request[1]);
+                    return "OK reloading";
+                case "DELTA": {
+                    List<String> added = new ArrayList<>();
+                    List<String> removed = new ArrayList<>();
+                    for (int i = 1; i < request.length; i++) {
+                        if (request[i].startsWith("+")) {
+                            added.add(request[i].substring(1));
+                        } else if (request[i].startsWith("-")) {
+                            removed.add(request[i].substring(1));
+                        } else {
+                            return "ERR expected +word or -word, got " + request[i];
+                        }
+                    }
+                    dictionary.reload(added, removed);
+                    return "OK reloading";
+                }
+                case "STATS": {
+                    String reload = dictionary.lastReload();
+                    return "OK sessions " + sessions.size() + " reload " + (reload == null ? "none" : reload);
+                }
+                default:
+                    return "ERR unknown request " + request[0];
+            }
+        } catch (UnknownSessionException e) {
+            return "ERR unknown session " + e.getMessage();
+        } catch (RuntimeException e) {
+            // Malformed requests (missing fields, bad numbers) must not take the connection down.
+            return "ERR " + e;
+        }
+    }
+
+    private static class UnknownSessionException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnknownSessionException(String id) {
+            super(id);
+        }
+    }
+
+    private HangmanSession session(String id) {
+        Entry entry = sessions.get(Long.parseLong(id));
+        if (entry == null) {
+            throw new UnknownSessionException(id);
+        }
+        entry.lastUsed = System.nanoTime();
+        return entry.session;
+    }
+
+    // Drop every session idle for longer than idleTimeoutNanos, unless that was done too recently.
+    private void dropIdleSessions() {
+        long now = System.nanoTime();
+        long next = nextSweep.get();
+        long interval = Math.min(SWEEP_INTERVAL_NANOS, idleTimeoutNanos);
+        if (now - next < 0 || !nextSweep.compareAndSet(next, now + interval)) {
+            return;
+        }
+        sessions.values().removeIf(entry -> now - entry.lastUsed > idleTimeoutNanos);
+    }
+}
@@ -0,0 +1,279 @@
+import java.util.Arrays;
+
+// One game at a time against a shared WordDictionary: the guessed letters, the surviving candidates and the
+// next guess. A session is not thread safe, but any number of sessions can share one dictionary concurrently.
+public class HangmanSession
+{
+
+    protected final LiveDictionary source;
+
+    // Same limit as EvalHangmanPlayer: the game is over after this many misses.
+    static final int MAX_MISSES = 6;
+
+    // The dictionary of the current word. Taken from source whenever a new word starts, so a reload never changes
+    // the words under a game in progress, and dropped again (with policy and cache) as soon as the game is over.
+    // A session that is not playing a word never keeps an old dictionary alive.
+    private WordDictionary dictionary = null;
+
+    private PolicyTable policy;
+
+    private StateCache cache;
+
+    private final GuessStrategy strategy;
+
+    private WordGroup grp;
+
+    boolean isNewWord = true;
+
+    private static class GameState {
+        boolean[] guessedLetters = new boolean[26];
+        CandidateSet candidates = null;
+
+        // Positions still blank (bit i for position i), and the positions each guessed letter was revealed at.
+        int blanks = 0;
+        int[] positions = new int[26];
+        int misses = 0;
+
+        // Only one of these is in use, depending on the engine. All are reused for every word, but let go of their
+        // storage for the candidates when a game ends.
+        SurvivorSet survivors = new SurvivorSet();
+        BitsetCandidates bitsets = new BitsetCandidates();
+        DawgCandidates dawgs = new DawgCandidates();
+
+        char nextBestGuess = '0';
+
+        // Current node in the PolicyTable, or -1 once the game is off the table.
+        // While on the table the candidates are left unfiltered.
+        int policyNode = -1;
+
+        // Current state in the StateCache, or -1 once this game's state is no longer cached.
+        long cacheNode = -1;
+
+        // Start a new word of group's length. The shared WordGroup itself is never copied or changed.
+        public void reset(WordGroup group, PlayerOptions options, PolicyTable policy, StateCache cache) {
+            Arrays.fill(guessedLetters, false);
+            // Longer words are played on their patterns, see feedbackPattern.
+            blanks = group.length <= WordGroup.MAX_MASK_LENGTH ? (1 << group.length) - 1 : 0;
+            misses = 0;
+            policyNode = policy == null ? -1 : policy.root(group);
+            if (policyNode >= 0 && policy.guess(policyNode) != group.bestFirstGuess) {
+                // Not the letter guess() just played, so the tree cannot follow this game.
+                policyNode = -1;
+            }
+            cacheNode = cache == null || policyNode >= 0 ? -1 : StateCache.root(group.length);
+            if (options.engine == PlayerOptions.Engine.BITSET) {
+                bitsets.reset(group.bitsetIndex);
+                candidates = bitsets;
+            } else if (options.engine == PlayerOptions.Engine.DAWG) {
+                dawgs.reset(group.dawg);
+                candidates = dawgs;
+            } else {
+                survivors.reset(group, options);
+                candidates = survivors;
+            }
+        }
+
+        // Let go of everything shared with the dictionary of the game that just ended. The scratch storage stays.
+        public void release() {
+            survivors.release();
+            bitsets.release();
+            dawgs.release();
+            candidates = null;
+        }
+
+        // Apply every guess made so far to the candidates at once. Filtering by the final positions of each
+        // letter gives the same survivors as filtering after every guess.
+        public void catchUp() {
+            for (int i = 0; i < 26; i++) {
+                if (guessedLetters[i]) {
+                    char letter = (char)('a' + i);
+                    if (positions[i] != 0) {
+                        candidates.processGoodPositions(letter, positions[i]);
+                    } else {
+                        candidates.processBadLetter(letter);
+                    }
+                }
+            }
+        }
+    }
+
+    private final GameState gameState = new GameState();
+
+    public HangmanSession(LiveDictionary source)
+    {
+        this.source = source;
+        this.strategy = GuessStrategy.create(source.current().options);
+    }
+
+    // A session that always plays on dictionary.
+    public HangmanSession(WordDictionary dictionary)
+    {
+        this(new LiveDictionary(dictionary));
+    }
+
+    // Size of the candidate set the next call starts from: the whole group right after a new word's first
+    // guess, the survivors after that. While a game is on the PolicyTable the candidates are not filtered,
+    // so this stays at the group size until it steps off.
+    int candidates()
+    {
+        if (isNewWord) {
+            return grp == null ? 0 : grp.count;
+        }
+        return gameState.candidates == null ? 0 : gameState.candidates.size();
+    }
+
+    // based on the current (partial or intitially blank) word
+    //    guess a letter
+    // currentWord: current word, currenWord.length has the length of the hidden word
+    // isNewWord: indicates a new hidden word
+    // returns the guessed letter
+    // assume all letters are in lower case
+    public char guess(String currentWord, boolean isNewWord)
+    {
+        return guess(currentWord.length(), isNewWord);
+    }
+
+    // The same as guess(String, boolean) for a word of length letters.
+    public char guess(int length, boolean isNewWord)
+    {
+        if(isNewWord) {
+            this.isNewWord = true;
+            // Whatever the latest reload is.
+            dictionary = source.current();
+            policy = dictionary.policy;
+            cache = dictionary.cache;
+            this.grp = dictionary.group(length);
+            assert this.grp != null;
+            return this.grp.bestFirstGuess;
+        } else {
+            return gameState.nextBestGuess;
+        }
+    }
+
+    // Drop every reference to the dictionary of the game that just ended, so a reload can free it.
+    private void endGame()
+    {
+        gameState.release();
+        dictionary = null;
+        policy = null;
+        cache = null;
+    }
+
+    // feedback on the guessed letter
+    // isCorrectGuess: true if the guessed letter is one of the letters in the hidden word
+    // currentWord: partially filled or blank word
+    //
+    // Case       isCorrectGuess      currentWord
+    // a.         true                partial word with the guessed letter
+    //                                   or the whole word if the guessed letter was the
+    //                                   last letter needed
+    // b.         false               partial word without the guessed letter
+    public void feedback(boolean isCorrectGuess, String currentWord)
+    {
+        char lastGuess = this.isNewWord ? this.grp.bestFirstGuess : gameState.nextBestGuess;
+        if (currentWord.length() > WordGroup.MAX_MASK_LENGTH) {
+            feedbackPattern(lastGuess, isCorrectGuess, currentWord);
+            return;
+        }
+        feedback(lastGuess, isCorrectGuess ? WordGroup.revealBits(lastGuess, currentWord) : 0);
+    }
+
+    // feedback for words too long for an int mask: the candidates are filtered on currentWord itself. The
+    // PolicyTable, StateCache and GuessStrategy all work on masks, so such a game goes without them and always
+    // picks the next guess with the frequency heuristic.
+    private void feedbackPattern(char lastGuess, boolean isCorrectGuess, String currentWord)
+    {
+        if(this.isNewWord) {
+            gameState.reset(this.grp, dictionary.options, null, null);
+            this.grp = null;
+            this.isNewWord = false;
+        } else if (dictionary == null) {
+            return;
+        }
+        gameState.guessedLetters[lastGuess - 'a'] = true;
+        if (!isCorrectGuess) {
+            gameState.misses++;
+        }
+
+        if((isCorrectGuess && currentWord.indexOf(' ') < 0) || gameState.misses >= MAX_MISSES) {
+            endGame();
+            return;
+        }
+
+        if(isCorrectGuess) {
+            gameState.candidates.processGoodPattern(lastGuess, currentWord);
+        } else {
+            gameState.candidates.processBadLetter(lastGuess);
+        }
+        gameState.nextBestGuess = gameState.candidates.getBestGuess(currentWord, gameState.guessedLetters);
+    }
+
+    // feedback without Strings: guessedLetter is the letter guess() returned and revealed has bit i set for
+    // every position i it was revealed at, 0 for a bad guess. Everything it touches is reused from one call to the
+    // next, so once the caches are warm only the candidate storage set up for a new word allocates. Only for words of up to WordGroup.MAX_MASK_LENGTH
+    // letters; longer ones have to go through feedback(boolean, String).
+    public void feedback(char guessedLetter, int revealed)
+    {
+        if(this.isNewWord) {
+            // The GameState is reused; starting a word only allocates the storage for its candidates.
+            gameState.reset(this.grp, dictionary.options, policy, cache);
+            this.grp = null;
+            this.isNewWord = false;
+        } else if (dictionary == null) {
+            // The game is already over; nothing to do until the next word.
+            return;
+        }
+        char lastGuess = guessedLetter;
+        gameState.guessedLetters[lastGuess - 'a'] = true;
+        gameState.positions[lastGuess - 'a'] = revealed;
+        gameState.blanks &= ~revealed;
+        if (revealed == 0) {
+            gameState.misses++;
+        }
+
+        if((revealed != 0 && gameState.blanks == 0) || gameState.misses >= MAX_MISSES) {
+            // We have guessed the word, or lost it.
+            endGame();
+            return;
+        }
+
+        if (gameState.policyNode >= 0) {
+            gameState.policyNode = policy.child(gameState.policyNode, revealed);
+            if (gameState.policyNode >= 0) {
+                gameState.nextBestGuess = policy.guess(gameState.policyNode);
+                return;
+            }
+            // Stepped off the table, so the candidates have to catch up before we can guess from them.
+            gameState.catchUp();
+        } else {
+            if (gameState.cacheNode >= 0) {
+                // Some earlier word may have been through this exact state already.
+                StateCache.Entry cached = cache.get(gameState.cacheNode, revealed);
+                if (cached != null) {
+                    gameState.candidates.restore(cached.candidates);
+                    gameState.nextBestGuess = cached.nextBestGuess;
+                    gameState.cacheNode = cached.id;
+                    return;
+                }
+            }
+            if(revealed != 0) {
+                gameState.candidates.processGoodPositions(lastGuess, revealed);
+            } else {
+                // Iterate through the candidates and remove any words that contain the bad letter.
+                gameState.candidates.processBadLetter(lastGuess);
+            }
+        }
+
+        // Set next best guess.
+        gameState.nextBestGuess = strategy.bestGuess(gameState.candidates, gameState.blanks, gameState.guessedLetters);
+
+        if (gameState.cacheNode >= 0) {
+            if (gameState.candidates.size() >= StateCache.MIN_CANDIDATES) {
+                gameState.cacheNode = cache.put(gameState.cacheNode, revealed, gameState.candidates.snapshot(), gameState.nextBestGuess);
+            } else {
+                gameState.cacheNode = -1;
+            }
+        }
+    }
+
+}
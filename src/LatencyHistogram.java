@@ -0,0 +1,92 @@
+import java.util.Arrays;
+
+// Histogram of non-negative longs (nanoseconds, bytes) with a bounded relative error, in the style of HdrHistogram.
+//
+// Values below 64 get a bucket each. Above that every power of two [2^e, 2^(e+1)) is split into SUB_BUCKETS equal
+// buckets, so a recorded value is known to within 1/32 (about 3%) however large it is. Counts only grow as far as
+// the largest value recorded, which keeps a histogram of microsecond latencies to a few KB.
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+
+    private long[] counts = new long[LINEAR_LIMIT];
+    private long count = 0;
+    private long total = 0;
+    private long max = 0;
+
+    private static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int)value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int top = (int)(value >>> (exponent - SUB_BUCKET_BITS));
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    // Largest value that falls into bucket index.
+    private static long highestValueAt(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        long top = SUB_BUCKETS + (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int index = indexOf(value);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index]++;
+        count++;
+        total += value;
+        max = Math.max(max, value);
+    }
+
+    public void add(LatencyHistogram other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double)total / count;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    // Smallest recorded value that percentile percent of the values are at or below, to within the bucket width.
+    public long percentile(double percent) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long)Math.ceil(percent / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueAt(i), max);
+            }
+        }
+        return max;
+    }
+}
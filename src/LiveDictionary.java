@@ -0,0 +1,93 @@
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+// The WordDictionary new games should use, which can be replaced while games are running.
+//
+// A reload builds the new dictionary on a background thread, from a word file or as a delta of added and removed
+// words on top of the current one, and then swaps it in with a single atomic write. Sessions only look at current()
+// when a new word starts, so a game in progress keeps playing on the dictionary it started with. Nothing else
+// refers to an old dictionary, so it is garbage once the last session that played on it has moved on to a new
+// word (or been dropped).
+//
+// Reloads run one at a time in the order they were asked for, so a delta always applies on top of the previous
+// reload.
+public class LiveDictionary {
+
+    private final AtomicReference<WordDictionary> current;
+
+    // Started on the first reload. A daemon thread, so a player that never reloads does not keep the JVM alive.
+    private ExecutorService reloader = null;
+
+    // How the last reload that finished went, or null before any has: when it finished, then "ok" or "failed" and why.
+    private volatile String lastReload = null;
+
+    public LiveDictionary(WordDictionary dictionary) {
+        current = new AtomicReference<>(dictionary);
+    }
+
+    public WordDictionary current() {
+        return current.get();
+    }
+
+    // See lastReload. For callers that do not wait on the future, such as HangmanServer.
+    public String lastReload() {
+        return lastReload;
+    }
+
+    // A new game that follows reloads from one word to the next.
+    public HangmanSession newSession() {
+        return new HangmanSession(this);
+    }
+
+    private synchronized ExecutorService reloader() {
+        if (reloader == null) {
+            reloader = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "dictionary reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return reloader;
+    }
+
+    // Load wordFile (or a DictionarySnapshot) with the current options and swap it in. The future completes with
+    // the new dictionary once new games get it. If the file cannot be loaded or has no words, the future fails
+    // with that and the current dictionary stays.
+    public Future<WordDictionary> reload(String wordFile) {
+        return reloader().submit(() -> record(() -> swapIn(WordDictionary.load(wordFile, current.get().options))));
+    }
+
+    // Add and remove words on top of the current dictionary, rebuilding only the lengths they touch. A delta that
+    // leaves no words fails the future instead.
+    public Future<WordDictionary> reload(Collection<String> added, Collection<String> removed) {
+        return reloader().submit(() -> record(() -> swapIn(current.get().withDelta(added, removed))));
+    }
+
+    // Run reload, keeping how it went in lastReload. A failure is also logged, since nobody may ever look at the
+    // future it ends up in.
+    private WordDictionary record(Callable<WordDictionary> reload) throws Exception {
+        try {
+            WordDictionary next = reload.call();
+            lastReload = Instant.now() + " ok";
+            return next;
+        } catch (Exception e) {
+            lastReload = Instant.now() + " failed " + e.getMessage();
+            System.out.println("Error: reload failed: " + e);
+            throw e;
+        }
+    }
+
+    private WordDictionary swapIn(WordDictionary next) throws IOException {
+        if (next.isEmpty()) {
+            throw new IOException("Not reloading a dictionary without words");
+        }
+        current.set(next);
+        return next;
+    }
+}
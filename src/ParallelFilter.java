@@ -0,0 +1,109 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// Filters the survivors of one SurvivorSet in chunks on the common ForkJoinPool (-Dhangman.parallelFilter).
+//
+// Each chunk is a contiguous range of the survivors. It is filtered in place by the same FilterKernels as the
+// sequential path, and counts the letters of the words it drops into a removed table of its own, so chunks never
+// write to anything shared. Afterwards the kept words of every chunk are moved down to close the gaps and the
+// chunk tables are added into the set's removed table, in chunk order, so the survivors come out in the same
+// order as a sequential pass.
+//
+// The chunks and their tables belong to one SurvivorSet and are reused from one filter pass to the next.
+class ParallelFilter {
+
+    // Fewest words a chunk is given. A set needs at least two chunks' worth to be split at all.
+    static final int MIN_CHUNK = 2048;
+
+    // A few chunks per worker, so one slow chunk does not hold up the whole pass.
+    private static final int MAX_CHUNKS = 4 * ForkJoinPool.getCommonPoolParallelism();
+
+    // Never serialized.
+    @SuppressWarnings("serial")
+    private static class Chunk extends RecursiveAction {
+        FilterKernels kernels;
+        WordGroup group;
+        int[] survivors;
+        int from;
+        int to;
+        boolean all;
+        int letter;
+        // null to drop the words with letter, or the pattern to keep as in FilterKernels.filterPattern.
+        long[] goodFields;
+
+        short[][] removed = new short[0][];
+        // Index after the last word this chunk kept.
+        int end;
+
+        protected void compute() {
+            if (goodFields == null) {
+                end = kernels.filterBadLetter(group, survivors, from, to, all, letter, removed);
+            } else {
+                end = kernels.filterPattern(group, survivors, from, to, all, letter, goodFields, removed);
+            }
+        }
+    }
+
+    private final ArrayList<Chunk> chunks = new ArrayList<>();
+    private final ArrayList<Chunk> running = new ArrayList<>();
+
+    // Same contract as the kernels' methods over survivors[0, count), with goodFields null for a bad letter.
+    // Returns the number of words kept.
+    int filter(FilterKernels kernels, WordGroup group, int[] survivors, int count, boolean all, int letter, long[] goodFields, short[][] removed) {
+        int n = Math.min(MAX_CHUNKS, count / MIN_CHUNK);
+        if (n < 2) {
+            // Not worth splitting.
+            return goodFields == null
+                    ? kernels.filterBadLetter(group, survivors, 0, count, all, letter, removed)
+                    : kernels.filterPattern(group, survivors, 0, count, all, letter, goodFields, removed);
+        }
+
+        running.clear();
+        for (int c = 0; c < n; c++) {
+            if (c == chunks.size()) {
+                chunks.add(new Chunk());
+            }
+            Chunk chunk = chunks.get(c);
+            chunk.reinitialize();
+            chunk.kernels = kernels;
+            chunk.group = group;
+            chunk.survivors = survivors;
+            chunk.from = (int)((long)count * c / n);
+            chunk.to = (int)((long)count * (c + 1) / n);
+            chunk.all = all;
+            chunk.letter = letter;
+            chunk.goodFields = goodFields;
+            if (chunk.removed.length < group.length) {
+                chunk.removed = new short[group.length][26];
+            } else {
+                for (int i = 0; i < group.length; i++) {
+                    Arrays.fill(chunk.removed[i], (short)0);
+                }
+            }
+            running.add(chunk);
+        }
+        ForkJoinTask.invokeAll(running);
+
+        // Merge: close the gaps between the chunks' kept words and add up their removed tables.
+        int kept = 0;
+        for (Chunk chunk : running) {
+            int chunkKept = chunk.end - chunk.from;
+            System.arraycopy(survivors, chunk.from, survivors, kept, chunkKept);
+            kept += chunkKept;
+            for (int i = 0; i < group.length; i++) {
+                short[] mine = removed[i];
+                short[] theirs = chunk.removed[i];
+                for (int j = 0; j < 26; j++) {
+                    mine[j] += theirs[j];
+                }
+            }
+            chunk.kernels = null;
+            chunk.group = null;
+            chunk.survivors = null;
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,68 @@
+// Tunables for HangmanPlayer. EvalHangmanPlayer only ever calls new HangmanPlayer(wordFile),
+// so every option can also be set with a -Dhangman.* system property on the java command line.
+public class PlayerOptions {
+
+    public enum Engine {
+        // Each game keeps a SurvivorSet over the shared, packed WordGroup arena: the indexes of the words still alive
+        // and per-position counts of the letters filtered out. The arena itself is never copied.
+        ARENA,
+        // Each game keeps a bitset of surviving words over a precomputed (position, letter) index.
+        BITSET,
+        // Each game keeps the letters still allowed per position and counts paths through a per-length Dawg.
+        DAWG
+    }
+
+    public Engine engine = Engine.valueOf(System.getProperty("hangman.engine", "arena").toUpperCase());
+
+    // With the arena engine, split filter passes over at least this many candidates across the common
+    // ForkJoinPool (see ParallelFilter). 0 always filters on the calling thread.
+    public int parallelFilter = Integer.getInteger("hangman.parallelFilter", 0);
+
+    // With the arena engine, filter with VectorKernels (the incubating Vector API) instead of the scalar loops. Only
+    // takes effect if it was built ("compile.sh simd") and java runs with --add-modules jdk.incubator.vector.
+    public boolean simd = Boolean.getBoolean("hangman.simd");
+
+    // Bucket and build the WordGroups of a word file on all cores with fork-join tasks.
+    public boolean parallelLoad = Boolean.getBoolean("hangman.parallelLoad");
+
+    // Only bucket the words of a word file at load time, and build each length's WordGroup the first time a word
+    // of that length is played. Startup and heap then follow the lengths actually in use.
+    public boolean lazyGroups = Boolean.getBoolean("hangman.lazyGroups");
+
+    // Lengths to build up front anyway when lazyGroups is on, e.g. -Dhangman.warmLengths=5,6,7,8
+    public int[] warmLengths = parseLengths(System.getProperty("hangman.warmLengths", ""));
+
+    private static int[] parseLengths(String list) {
+        if (list.isBlank()) {
+            return new int[0];
+        }
+        String[] parts = list.split(",");
+        int[] lengths = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            lengths[i] = Integer.parseInt(parts[i].trim());
+        }
+        return lengths;
+    }
+
+    // Keep every WordGroup's words and frequencyMap in direct buffers off the Java heap once it is built.
+    public boolean offHeap = Boolean.getBoolean("hangman.offHeap");
+
+    // PolicyTable file written by "java PolicyTable wordFile policyFile", or null.
+    public String policyFile = System.getProperty("hangman.policy");
+
+    public enum Strategy {
+        // Highest positional letter count over the blanks (FrequencyStrategy).
+        FREQUENCY,
+        // Fewest expected misses, then most information, over the candidates' partitions (EntropyStrategy).
+        ENTROPY
+    }
+
+    public Strategy strategy = Strategy.valueOf(System.getProperty("hangman.strategy", "frequency").toUpperCase());
+
+    // Time a guess strategy may spend on one guess before it falls back to the frequency heuristic. Strategies turn it
+    // into a fixed amount of work up front, so the same budget always plays the same letters.
+    public long strategyBudgetNanos = Long.getLong("hangman.strategyBudgetNanos", 50_000);
+
+    // Memory budget in bytes for the StateCache shared across games. 0 turns it off.
+    public long cacheBytes = Long.getLong("hangman.cacheBytes", 0);
+}
@@ -0,0 +1,284 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+/*
+  Precomputed guesses for a fixed dictionary.
+
+  Usage: PolicyTable wordFile policyFile [depth]
+
+  The player is deterministic: the next guess only depends on the word length, the letters guessed so far
+  and the revealed mask. So for every length we walk the decision tree the player would follow and store it.
+  By default the whole tree is kept (about 1M states for words.txt); depth caps it at that many guesses.
+  Each node holds the guess to make; its children are keyed by the positions that guess revealed (0 for a miss).
+  Since the guesses along a path are fixed, (length, path) is the same as (length, mask, miss set).
+
+  At runtime HangmanPlayer (-Dhangman.policy=policyFile) follows the tree from the root of the word's length
+  and only falls back to filtering its candidates once it steps off the table.
+
+  The tree is only right for the word list it was built from, so the file also keeps the word count and
+  WordGroup.fingerprint() of every length. A length whose group does not match has no root.
+*/
+public class PolicyTable {
+
+    private static final int MAGIC = 0x48504f4c; // "HPOL"
+    private static final int VERSION = 2;
+
+    // rootByLength[length]: root node for words of that length, or -1.
+    private int[] rootByLength = new int[0];
+
+    // countByLength[length] and fingerprintByLength[length]: the group the tree of that length was built from.
+    private int[] countByLength = new int[0];
+    private long[] fingerprintByLength = new long[0];
+
+    // Node n guesses guesses[n]. Its children are edges [edgeStart[n], edgeStart[n] + edgeCount[n]),
+    // sorted by edgeKey, the positions revealed by the guess.
+    private byte[] guesses = new byte[0];
+    private int[] edgeStart = new int[0];
+    private short[] edgeCount = new short[0];
+    private int nodeCount = 0;
+
+    private int[] edgeKey = new int[0];
+    private int[] edgeTarget = new int[0];
+    private int edgeTotal = 0;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: PolicyTable wordFile policyFile [depth]");
+            System.exit(-1);
+        }
+        int depth = args.length == 3 ? Integer.parseInt(args[2]) : Integer.MAX_VALUE;
+
+        // Building walks the packed words, which the dawg engine would drop.
+        PlayerOptions options = new PlayerOptions();
+        options.engine = PlayerOptions.Engine.ARENA;
+        HangmanPlayer player = new HangmanPlayer(args[0], options);
+        PolicyTable table = build(player.wordGroups(), depth);
+        table.write(args[1]);
+        System.out.println("Wrote " + table.nodeCount + " states, " + table.edgeTotal + " transitions to " + args[1]);
+    }
+
+    public static PolicyTable build(Map<Integer, WordGroup> wordsByLength, int depth) {
+        PolicyTable table = new PolicyTable();
+        int maxLength = 0;
+        for (int length : wordsByLength.keySet()) {
+            maxLength = Math.max(maxLength, length);
+        }
+        table.rootByLength = new int[maxLength + 1];
+        Arrays.fill(table.rootByLength, -1);
+        table.countByLength = new int[maxLength + 1];
+        table.fingerprintByLength = new long[maxLength + 1];
+
+        for (Map.Entry<Integer, WordGroup> entry : wordsByLength.entrySet()) {
+            WordGroup group = entry.getValue();
+            // Reveal masks are ints, one bit per position.
+            if (group.length > WordGroup.MAX_MASK_LENGTH || group.count == 0) {
+                continue;
+            }
+            int[] candidates = new int[group.count];
+            for (int i = 0; i < candidates.length; i++) {
+                candidates[i] = i;
+            }
+            int blanks = (int)((1L << group.length) - 1);
+            table.countByLength[entry.getKey()] = group.count;
+            table.fingerprintByLength[entry.getKey()] = group.fingerprint();
+            table.rootByLength[entry.getKey()] = table.walk(group, candidates, candidates.length, 0, blanks, 0, depth);
+        }
+        return table;
+    }
+
+    // Adds the node for this state and everything below it. Returns the new node.
+    private int walk(WordGroup group, int[] candidates, int count, int guessed, int blanks, int misses, int depth) {
+        int guess = bestGuess(group, candidates, count, guessed, blanks);
+        int node = addNode(guess);
+        if (depth <= 1) {
+            return node;
+        }
+
+        // Partition the candidates by the positions the guess would reveal in them.
+        long[] keyed = new long[count];
+        for (int i = 0; i < count; i++) {
+            keyed[i] = ((long)group.positionsOf(candidates[i], guess) << 32) | candidates[i];
+        }
+        Arrays.sort(keyed);
+
+        int[] keys = new int[count];
+        int[] targets = new int[count];
+        int children = 0;
+        int start = 0;
+        while (start < count) {
+            int key = (int)(keyed[start] >>> 32);
+            int end = start + 1;
+            while (end < count && (int)(keyed[end] >>> 32) == key) {
+                end++;
+            }
+            int childMisses = key == 0 ? misses + 1 : misses;
+            int childBlanks = blanks & ~key;
+            // Nothing left to guess once the word is complete or the game is lost.
+            if (childBlanks != 0 && childMisses < HangmanSession.MAX_MISSES) {
+                int[] subset = new int[end - start];
+                for (int i = start; i < end; i++) {
+                    subset[i - start] = (int)keyed[i];
+                }
+                keys[children] = key;
+                targets[children] = walk(group, subset, subset.length, guessed | (1 << guess), childBlanks, childMisses, depth - 1);
+                children++;
+            }
+            start = end;
+        }
+
+        edgeStart[node] = edgeTotal;
+        edgeCount[node] = (short)children;
+        for (int i = 0; i < children; i++) {
+            addEdge(keys[i], targets[i]);
+        }
+        return node;
+    }
+
+    // Same heuristic as SurvivorSet.getBestGuess: sum positional letter counts over the blanks.
+    private static int bestGuess(WordGroup group, int[] candidates, int count, int guessed, int blanks) {
+        short[][] frequency = new short[group.length][26];
+        for (int i = 0; i < count; i++) {
+            group.countLetters(candidates[i], frequency);
+        }
+        int[] totalFrequency = new int[26];
+        boolean[] guessedLetters = new boolean[26];
+        for (int j = 0; j < 26; j++) {
+            guessedLetters[j] = (guessed & (1 << j)) != 0;
+        }
+        for (int i = 0; i < group.length; i++) {
+            if ((blanks & (1 << i)) != 0) {
+                for (int j = 0; j < 26; j++) {
+                    if (!guessedLetters[j])
+                        totalFrequency[j] += frequency[i][j];
+                }
+            }
+        }
+        return WordGroup.mostFrequent(totalFrequency, guessedLetters);
+    }
+
+    private int addNode(int guess) {
+        if (nodeCount == guesses.length) {
+            int capacity = Math.max(1024, nodeCount * 2);
+            guesses = Arrays.copyOf(guesses, capacity);
+            edgeStart = Arrays.copyOf(edgeStart, capacity);
+            edgeCount = Arrays.copyOf(edgeCount, capacity);
+        }
+        guesses[nodeCount] = (byte)guess;
+        return nodeCount++;
+    }
+
+    private void addEdge(int key, int target) {
+        if (edgeTotal == edgeKey.length) {
+            int capacity = Math.max(1024, edgeTotal * 2);
+            edgeKey = Arrays.copyOf(edgeKey, capacity);
+            edgeTarget = Arrays.copyOf(edgeTarget, capacity);
+        }
+        edgeKey[edgeTotal] = key;
+        edgeTarget[edgeTotal] = target;
+        edgeTotal++;
+    }
+
+    // Root node for words of length, or -1 if the table has none.
+    public int root(int length) {
+        return length < rootByLength.length ? rootByLength[length] : -1;
+    }
+
+    // Was the tree for group's length built from exactly group's words?
+    public boolean matches(WordGroup group) {
+        int length = group.length;
+        return length < rootByLength.length && rootByLength[length] >= 0 && countByLength[length] == group.count
+                && fingerprintByLength[length] == group.fingerprint();
+    }
+
+    // Root node for words of group, or -1 if the table has none or was built from other words.
+    public int root(WordGroup group) {
+        return matches(group) ? rootByLength[group.length] : -1;
+    }
+
+    public char guess(int node) {
+        return (char)(guesses[node] + 'a');
+    }
+
+    // Node reached from node when its guess revealed the positions in revealed, or -1 if not in the table.
+    public int child(int node, int revealed) {
+        int low = edgeStart[node];
+        int high = low + edgeCount[node] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (edgeKey[middle] < revealed) {
+                low = middle + 1;
+            } else if (edgeKey[middle] > revealed) {
+                high = middle - 1;
+            } else {
+                return edgeTarget[middle];
+            }
+        }
+        return -1;
+    }
+
+    public void write(String policyFile) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(policyFile), 256 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rootByLength.length);
+            for (int length = 0; length < rootByLength.length; length++) {
+                out.writeInt(rootByLength[length]);
+                out.writeInt(countByLength[length]);
+                out.writeLong(fingerprintByLength[length]);
+            }
+            out.writeInt(nodeCount);
+            out.write(guesses, 0, nodeCount);
+            for (int i = 0; i < nodeCount; i++) {
+                out.writeInt(edgeStart[i]);
+                out.writeShort(edgeCount[i]);
+            }
+            out.writeInt(edgeTotal);
+            for (int i = 0; i < edgeTotal; i++) {
+                out.writeInt(edgeKey[i]);
+                out.writeInt(edgeTarget[i]);
+            }
+        }
+    }
+
+    public static PolicyTable read(String policyFile) throws IOException {
+        PolicyTable table = new PolicyTable();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(policyFile), 256 * 1024))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(policyFile + " is not a version " + VERSION + " policy table");
+            }
+            int lengths = in.readInt();
+            table.rootByLength = new int[lengths];
+            table.countByLength = new int[lengths];
+            table.fingerprintByLength = new long[lengths];
+            for (int i = 0; i < lengths; i++) {
+                table.rootByLength[i] = in.readInt();
+                table.countByLength[i] = in.readInt();
+                table.fingerprintByLength[i] = in.readLong();
+            }
+            table.nodeCount = in.readInt();
+            table.guesses = new byte[table.nodeCount];
+            in.readFully(table.guesses);
+            table.edgeStart = new int[table.nodeCount];
+            table.edgeCount = new short[table.nodeCount];
+            for (int i = 0; i < table.nodeCount; i++) {
+                table.edgeStart[i] = in.readInt();
+                table.edgeCount[i] = in.readShort();
+            }
+            table.edgeTotal = in.readInt();
+            table.edgeKey = new int[table.edgeTotal];
+            table.edgeTarget = new int[table.edgeTotal];
+            for (int i = 0; i < table.edgeTotal; i++) {
+                table.edgeKey[i] = in.readInt();
+                table.edgeTarget[i] = in.readInt();
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+// Game states shared across games, so that consecutive words of the same length reuse the candidates
+// someone else already filtered instead of filtering the whole WordGroup again.
+//
+// The states form a trie. A word of length n starts at root n, and every feedback moves to the child keyed
+// by the positions the last guess revealed (0 for a miss). The guess itself is not part of the key: it is
+// fully decided by the parent state. Each cached state keeps a snapshot of its candidates and its next guess.
+// The keys are int reveal masks, so words longer than WordGroup.MAX_MASK_LENGTH are never cached.
+//
+// The cache is bounded by maxBytes and evicts the least recently used states first. An evicted state's
+// children can no longer be reached, so they just age out in turn.
+public class StateCache {
+
+    public static class Entry {
+        final long id;
+        final CandidateSet.Snapshot candidates;
+        final char nextBestGuess;
+
+        Entry(long id, CandidateSet.Snapshot candidates, char nextBestGuess) {
+            this.id = id;
+            this.candidates = candidates;
+            this.nextBestGuess = nextBestGuess;
+        }
+    }
+
+    // Ids below this are the roots, one per word length.
+    private static final long FIRST_ID = 1024;
+
+    // Smaller candidate sets are cheaper to filter than to look up, so they are not cached.
+    public static final int MIN_CANDIDATES = 64;
+
+    // Per entry bookkeeping on top of the snapshot: the map entry, the key and the Entry itself.
+    private static final long ENTRY_OVERHEAD = 96;
+
+    private final long maxBytes;
+    private long usedBytes = 0;
+    private long nextId = FIRST_ID;
+
+    // Keyed by parent id and revealed positions, in least recently used order.
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+
+    private long hits = 0;
+    private long misses = 0;
+
+    public StateCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static long root(int length) {
+        return length;
+    }
+
+    private static Long key(long parent, int revealed) {
+        return (parent << 32) | (revealed & 0xFFFFFFFFL);
+    }
+
+    // State reached from parent when its guess revealed the positions in revealed, or null if not cached.
+    public synchronized Entry get(long parent, int revealed) {
+        Entry entry = entries.get(key(parent, revealed));
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    // Cache the state reached from parent. Returns its id, or -1 if it was not kept.
+    public synchronized long put(long parent, int revealed, CandidateSet.Snapshot candidates, char nextBestGuess) {
+        long size = candidates.sizeInBytes() + ENTRY_OVERHEAD;
+        if (size > maxBytes) {
+            return -1;
+        }
+        Entry entry = new Entry(nextId++, candidates, nextBestGuess);
+        Entry previous = entries.put(key(parent, revealed), entry);
+        if (previous != null) {
+            usedBytes -= previous.candidates.sizeInBytes() + ENTRY_OVERHEAD;
+        }
+        usedBytes += size;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (usedBytes > maxBytes) {
+            Entry evicted = eldest.next();
+            usedBytes -= evicted.candidates.sizeInBytes() + ENTRY_OVERHEAD;
+            eldest.remove();
+        }
+        return entry.id;
+    }
+
+    public synchronized String toString() {
+        return "StateCache: " + entries.size() + " states, " + usedBytes + "/" + maxBytes + " bytes, "
+                + hits + " hits, " + misses + " misses";
+    }
+}
@@ -0,0 +1,59 @@
+// Summary statistics over repeated measurements, for the benchmark harnesses.
+public class Statistics {
+
+    public final int n;
+    public final double mean;
+    public final double stddev;
+    public final double min;
+    public final double max;
+
+    public Statistics(double[] samples) {
+        n = samples.length;
+        double sum = 0;
+        double low = Double.POSITIVE_INFINITY;
+        double high = Double.NEGATIVE_INFINITY;
+        for (double sample : samples) {
+            sum += sample;
+            low = Math.min(low, sample);
+            high = Math.max(high, sample);
+        }
+        mean = n == 0 ? 0 : sum / n;
+        double squares = 0;
+        for (double sample : samples) {
+            squares += (sample - mean) * (sample - mean);
+        }
+        stddev = n < 2 ? 0 : Math.sqrt(squares / (n - 1));
+        min = low;
+        max = high;
+    }
+
+    // Half width of the 99.9% confidence interval of the mean (the same level JMH reports).
+    public double error() {
+        return n < 2 ? Double.NaN : studentT999(n - 1) * stddev / Math.sqrt(n);
+    }
+
+    // Half width of the 95% confidence interval of the mean.
+    public double error95() {
+        return n < 2 ? Double.NaN : studentT95(n - 1) * stddev / Math.sqrt(n);
+    }
+
+    // Two sided critical values of Student's t distribution, for degrees of freedom 1 to 30.
+    private static final double[] T95 = {
+        12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+        2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+        2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+    private static final double[] T999 = {
+        636.62, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+        4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+        3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646
+    };
+
+    private static double studentT95(int degrees) {
+        return degrees <= T95.length ? T95[degrees - 1] : 1.960;
+    }
+
+    private static double studentT999(int degrees) {
+        return degrees <= T999.length ? T999[degrees - 1] : 3.291;
+    }
+}
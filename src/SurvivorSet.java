@@ -0,0 +1,171 @@
+import java.util.Arrays;
+
+// CandidateSet over a shared WordGroup that never touches the group itself.
+// A game only keeps the indexes of the words still alive, plus a table of how many of each letter
+// have been filtered out per position. The removed table is reset in place and reused from one game to the next;
+// the survivors, which grow with the group, are let go when the game ends.
+public class SurvivorSet implements CandidateSet {
+
+    private WordGroup group = null;
+
+    // Indexes into group of the words still alive. While all is set nothing has been filtered yet,
+    // and every word of the group is alive without survivors having to be filled in.
+    private int[] survivors = new int[0];
+    private int count = 0;
+    private boolean all = true;
+
+    // removed[position][letter]: how many filtered out words had letter at position.
+    // The live frequency is group.frequencyMap minus this.
+    private short[][] removed = new short[0][];
+
+    private long[] goodFields = new long[0];
+
+    // Scratch for getBestGuess.
+    private final int[] totalFrequency = new int[26];
+
+    // Filter passes over at least this many survivors are split across the ForkJoinPool. 0 never splits.
+    private int parallelThreshold = 0;
+    private ParallelFilter parallel = null;
+
+    private FilterKernels kernels = null;
+
+    // Start over with every word of group alive, filtering as options ask (parallelFilter, simd).
+    public void reset(WordGroup group, PlayerOptions options) {
+        this.group = group;
+        this.parallelThreshold = options.parallelFilter;
+        this.kernels = FilterKernels.of(options);
+        if (parallelThreshold > 0 && parallel == null) {
+            parallel = new ParallelFilter();
+        }
+        count = group.count;
+        all = true;
+        if (removed.length < group.length) {
+            removed = new short[group.length][];
+            for (int i = 0; i < group.length; i++) {
+                removed[i] = new short[26];
+            }
+        } else {
+            for (int i = 0; i < group.length; i++) {
+                Arrays.fill(removed[i], (short)0);
+            }
+        }
+        if (goodFields.length < group.stride) {
+            goodFields = new long[group.stride];
+        }
+    }
+
+    // Called before the first filter pass, when survivors has to start holding real indexes.
+    private void ensureCapacity() {
+        if (survivors.length < count) {
+            survivors = new int[count];
+        }
+    }
+
+    // Forget the group and the survivors, so an idle set holds nothing that grows with the dictionary.
+    public void release() {
+        group = null;
+        survivors = new int[0];
+        count = 0;
+    }
+
+    public void processBadLetter(char badLetter) {
+        // Walk the survivors, dropping all which contain badLetter and counting their letters as removed.
+        int checkLetter = badLetter - 'a';
+        ensureCapacity();
+        if (parallelThreshold > 0 && count >= parallelThreshold) {
+            count = parallel.filter(kernels, group, survivors, count, all, checkLetter, null, removed);
+        } else {
+            count = kernels.filterBadLetter(group, survivors, 0, count, all, checkLetter, removed);
+        }
+        all = false;
+    }
+
+    public void processGoodPositions(char goodLetter, int positions) {
+        WordGroup.positionFields(positions, goodFields);
+        filterPattern(goodLetter - 'a');
+    }
+
+    public void processGoodPattern(char goodLetter, String pattern) {
+        WordGroup.patternFields(goodLetter, pattern, goodFields);
+        filterPattern(goodLetter - 'a');
+    }
+
+    // Filter out words that do not have checkLetter in exactly the fields in goodFields.
+    private void filterPattern(int checkLetter) {
+        ensureCapacity();
+        if (parallelThreshold > 0 && count >= parallelThreshold) {
+            count = parallel.filter(kernels, group, survivors, count, all, checkLetter, goodFields, removed);
+        } else {
+            count = kernels.filterPattern(group, survivors, 0, count, all, checkLetter, goodFields, removed);
+        }
+        all = false;
+    }
+
+    public char getBestGuess(int blanks, boolean[] guessedLetters) {
+        // Same heuristic as WordGroup.getBestGuess, on the frequencies of the surviving words.
+        Arrays.fill(totalFrequency, 0);
+        kernels.letterTotals(group.frequencyMap, removed, blanks, guessedLetters, totalFrequency);
+        return (char)(WordGroup.mostFrequent(totalFrequency, guessedLetters) + 'a');
+    }
+
+    public char getBestGuess(String currentMask, boolean[] guessedLetters) {
+        Arrays.fill(totalFrequency, 0);
+        kernels.letterTotals(group.frequencyMap, removed, currentMask, guessedLetters, totalFrequency);
+        return (char)(WordGroup.mostFrequent(totalFrequency, guessedLetters) + 'a');
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public WordGroup group() {
+        return group;
+    }
+
+    public int words(int[] words) {
+        for (int n = 0; n < count; n++) {
+            words[n] = all ? n : survivors[n];
+        }
+        return count;
+    }
+
+    private static class SurvivorSnapshot implements Snapshot {
+        final int[] survivors;
+        final short[][] removed;
+
+        SurvivorSnapshot(int[] survivors, short[][] removed) {
+            this.survivors = survivors;
+            this.removed = removed;
+        }
+
+        public long sizeInBytes() {
+            return 16 + survivors.length * 4L + removed.length * (16 + 26 * 2L);
+        }
+    }
+
+    public Snapshot snapshot() {
+        ensureCapacity();
+        if (all) {
+            for (int n = 0; n < count; n++) {
+                survivors[n] = n;
+            }
+            all = false;
+        }
+        short[][] removedCopy = new short[group.length][];
+        for (int i = 0; i < group.length; i++) {
+            removedCopy[i] = removed[i].clone();
+        }
+        return new SurvivorSnapshot(Arrays.copyOf(survivors, count), removedCopy);
+    }
+
+    public void restore(Snapshot snapshot) {
+        SurvivorSnapshot saved = (SurvivorSnapshot)snapshot;
+        count = saved.survivors.length;
+        all = false;
+        ensureCapacity();
+        System.arraycopy(saved.survivors, 0, survivors, 0, count);
+        for (int i = 0; i < group.length; i++) {
+            System.arraycopy(saved.removed[i], 0, removed[i], 0, 26);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+// Everything a game reads but never changes: the WordGroups of a word file, plus the optional PolicyTable and
+// StateCache. One WordDictionary can serve any number of HangmanSessions at once, on any number of threads.
+// WordGroups, BitsetIndexes, Dawgs and the PolicyTable are immutable once built, and the StateCache synchronizes itself.
+// A new word list means a new WordDictionary; LiveDictionary swaps it in under running sessions.
+public class WordDictionary {
+
+    // Since the only thing we know about our given word is the length, we can store all words of
+    // a given length in a hashmap
+
+    private final HashMap<Integer, WordGroup> wordsByLength = new HashMap<>();
+
+    // With -Dhangman.lazyGroups=true: lazyByLength[length] builds that length's group on first use, and
+    // wordsByLength stays empty. null otherwise.
+    private LazyGroup[] lazyByLength = null;
+
+    // The words bucketed by length at load time, until every lazy group has been built from them.
+    private ArrayList<WordLoader.Buckets> buckets;
+
+    final PlayerOptions options;
+
+    // Precomputed guesses, or null to always filter live.
+    final PolicyTable policy;
+
+    // Filtered candidates shared across games, or null.
+    final StateCache cache;
+
+    // Why the word file could not be loaded, or null. The dictionary is then missing words, or empty.
+    private Exception loadError = null;
+
+    // load a file of English words, or a DictionarySnapshot
+    public WordDictionary(String wordFile, PlayerOptions options)
+    {
+        this.options = options;
+        if (DictionarySnapshot.isSnapshot(wordFile)) {
+            // Already preprocessed: the groups just map the file.
+            try {
+                DictionarySnapshot.read(wordFile, wordsByLength);
+            } catch (Exception e) {
+                System.out.println("Error: " + e);
+                loadError = e;
+            }
+        } else if (options.lazyGroups) {
+            // Only bucket the words for now. Every length gets built the first time it is played.
+            try {
+                buckets = WordLoader.bucket(wordFile, options.parallelLoad);
+                ArrayList<Integer> lengths = WordLoader.lengths(buckets);
+                lazyByLength = new LazyGroup[lengths.isEmpty() ? 0 : lengths.get(lengths.size() - 1) + 1];
+                for (int length : lengths) {
+                    lazyByLength[length] = new LazyGroup(length);
+                }
+                for (int length : options.warmLengths) {
+                    group(length);
+                }
+            } catch (Exception e) {
+                System.out.println("Error: " + e);
+                loadError = e;
+            }
+        } else if (options.parallelLoad) {
+            try {
+                wordsByLength.putAll(WordLoader.loadParallel(wordFile));
+            } catch (Exception e) {
+                System.out.println("Error: " + e);
+                loadError = e;
+            }
+        } else {
+            try {
+                wordsByLength.putAll(WordLoader.load(wordFile));
+            } catch (Exception e) {
+                System.out.println("Error: " + e);
+                loadError = e;
+            }
+        }
+
+        Dawg.Scratch scratch = new Dawg.Scratch();
+        for (WordGroup group : wordsByLength.values()) {
+            prepare(group, scratch);
+        }
+
+        PolicyTable table = null;
+        if (options.policyFile != null) {
+            try {
+                table = PolicyTable.read(options.policyFile);
+                // Every game checks its own length against the table (PolicyTable.root(WordGroup)), so a length
+                // built from other words is just played without it, lazy or not. Say so up front where we can.
+                for (WordGroup group : new TreeMap<>(wordsByLength).values()) {
+                    if (table.root(group.length) >= 0 && !table.matches(group)) {
+                        System.out.println("Error: " + options.policyFile + " was built from different words of length "
+                                + group.length + ", not using it for those");
+                    }
+                }
+            } catch (Exception e) {
+                System.out.println("Error: " + e);
+            }
+        }
+        policy = table;
+        cache = options.cacheBytes > 0 ? new StateCache(options.cacheBytes) : null;
+    }
+
+    // The same as new WordDictionary(wordFile, options), but throws instead of coming up with missing words.
+    public static WordDictionary load(String wordFile, PlayerOptions options) throws IOException
+    {
+        WordDictionary dictionary = new WordDictionary(wordFile, options);
+        if (dictionary.loadError != null) {
+            throw new IOException("Could not load " + wordFile, dictionary.loadError);
+        }
+        if (dictionary.isEmpty()) {
+            throw new IOException(wordFile + " has no words");
+        }
+        return dictionary;
+    }
+
+    // Whether there are no words of any length.
+    public boolean isEmpty()
+    {
+        if (lazyByLength != null) {
+            for (LazyGroup lazy : lazyByLength) {
+                if (lazy != null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return wordsByLength.isEmpty();
+    }
+
+    // A dictionary over groups, which are already prepared, with the PolicyTable of the dictionary they came from.
+    // The table only serves the lengths whose words it was built from, so lengths that changed go without it. The
+    // StateCache starts out empty, since its states are only valid for the words they were filtered from.
+    private WordDictionary(Map<Integer, WordGroup> groups, PolicyTable policy, PlayerOptions options)
+    {
+        this.options = options;
+        wordsByLength.putAll(groups);
+        this.policy = policy;
+        cache = options.cacheBytes > 0 ? new StateCache(options.cacheBytes) : null;
+    }
+
+    // What the options ask for on top of an initialized group. scratch is for building a Dawg.
+    private void prepare(WordGroup group, Dawg.Scratch scratch) {
+        if (options.engine == PlayerOptions.Engine.BITSET) {
+            group.bitsetIndex = new BitsetIndex(group);
+        }
+        if (options.engine == PlayerOptions.Engine.DAWG) {
+            // The automaton holds every word, so the packed copy goes. Only the entropy strategy asks for the
+            // candidates' words and needs the ranks for that.
+            group.dawg = new Dawg(group, options.strategy == PlayerOptions.Strategy.ENTROPY, scratch);
+            group.dropWords();
+        }
+        if (options.offHeap) {
+            group.moveOffHeap();
+        }
+    }
+
+    // A copy of this dictionary with the words in added put in and the words in removed taken out. Only the
+    // lengths the delta touches are rebuilt; every other WordGroup is immutable and simply shared with this one.
+    // Words keep their order, with added words after the old ones, as if appended to the word file (with the dawg
+    // engine, the old ones come in alphabetical order). A word that is both added and removed ends up removed. A lazy
+    // dictionary builds all of its lengths first.
+    public WordDictionary withDelta(Collection<String> added, Collection<String> removed)
+    {
+        HashMap<Integer, WordGroup> groups = new HashMap<>(wordGroups());
+        HashMap<Integer, WordGroup> removedByLength = new HashMap<>();
+        HashMap<Integer, ArrayList<long[]>> addedByLength = new HashMap<>();
+        for (String word : removed) {
+            long[] packed = new long[WordGroup.strideFor(word.length())];
+            if (WordGroup.pack(word, packed)) {
+                removedByLength.computeIfAbsent(word.length(), WordGroup::new).insert(packed, 0);
+            }
+        }
+        for (String word : added) {
+            long[] packed = new long[WordGroup.strideFor(word.length())];
+            if (WordGroup.pack(word, packed)) {
+                addedByLength.computeIfAbsent(word.length(), length -> new ArrayList<>()).add(packed);
+            }
+        }
+
+        Dawg.Scratch scratch = new Dawg.Scratch();
+        TreeSet<Integer> touched = new TreeSet<>(removedByLength.keySet());
+        touched.addAll(addedByLength.keySet());
+        for (int length : touched) {
+            WordGroup old = groups.get(length);
+            WordGroup gone = removedByLength.get(length);
+            WordGroup rebuilt = new WordGroup(length);
+            if (old != null && old.words == null) {
+                // The dawg engine dropped the packed words, so read them back off the automaton, alphabetically.
+                old.dawg.forEachWord(word -> {
+                    if (gone == null || !gone.contains(word, 0)) {
+                        rebuilt.insert(word, 0);
+                    }
+                });
+            }
+            long[] packed = new long[rebuilt.stride];
+            for (int word = 0; old != null && old.words != null && word < old.count; word++) {
+                for (int k = 0; k < rebuilt.stride; k++) {
+                    packed[k] = old.words.get(word * rebuilt.stride + k);
+                }
+                if (gone == null || !gone.contains(packed, 0)) {
+                    rebuilt.insert(packed, 0);
+                }
+            }
+            for (long[] word : addedByLength.getOrDefault(length, new ArrayList<>())) {
+                if (gone == null || !gone.contains(word, 0)) {
+                    rebuilt.insert(word, 0);
+                }
+            }
+            if (rebuilt.count == 0) {
+                groups.remove(length);
+                continue;
+            }
+            rebuilt.initialize(" ".repeat(length), new boolean[26]);
+            prepare(rebuilt, scratch);
+            groups.put(length, rebuilt);
+        }
+        return new WordDictionary(groups, policy, options);
+    }
+
+    // A length whose WordGroup is only built on first use. Any number of threads may ask at once: the first one
+    // builds it while the others wait, and from then on it is a volatile read.
+    private final class LazyGroup {
+        private final int length;
+        private volatile WordGroup group = null;
+
+        LazyGroup(int length) {
+            this.length = length;
+        }
+
+        WordGroup get() {
+            WordGroup built = group;
+            if (built == null) {
+                synchronized (this) {
+                    built = group;
+                    if (built == null) {
+                        built = WordLoader.build(length, buckets);
+                        prepare(built, new Dawg.Scratch());
+                        group = built;
+                    }
+                }
+            }
+            return built;
+        }
+    }
+
+    // The WordGroup for words of length, or null if the word file had none.
+    public WordGroup group(int length) {
+        if (lazyByLength != null) {
+            return length >= 0 && length < lazyByLength.length && lazyByLength[length] != null ? lazyByLength[length].get() : null;
+        }
+        return wordsByLength.get(length);
+    }
+
+    // All WordGroups by word length. Shared by every game; do not modify. Builds every lazy group.
+    Map<Integer, WordGroup> wordGroups() {
+        if (lazyByLength != null) {
+            HashMap<Integer, WordGroup> all = new HashMap<>();
+            for (int length = 0; length < lazyByLength.length; length++) {
+                if (lazyByLength[length] != null) {
+                    all.put(length, lazyByLength[length].get());
+                }
+            }
+            return Collections.unmodifiableMap(all);
+        }
+        return Collections.unmodifiableMap(wordsByLength);
+    }
+
+    // A new game on this dictionary only. Sessions are cheap, and each one must only be used by one thread at a time.
+    public HangmanSession newSession() {
+        return new HangmanSession(this);
+    }
+}
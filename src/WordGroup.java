@@ -1,111 +1,398 @@
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
 
 public class WordGroup {
 
     // This class will contain all words of the same string length, which do not contain spaces.
     // It is used by Hangman for guessing the next character.
+    // Once initialize() has run the group is never modified again; games filter it through a SurvivorSet.
 
-    public ArrayList<byte[]> words = null;
+    // Every letter fits in 5 bits (0-25), so we pack 12 letters into each long.
+    // A word of this group's length takes up `stride` longs, and all words are stored back to back
+    // in one array instead of as separate byte[] objects. Groups loaded from a DictionarySnapshot read
+    // their words straight out of the memory mapped file instead.
+    static final int BITS_PER_LETTER = 5;
+    static final int LETTERS_PER_LONG = 12;
 
-    // Used to store the frequency of unique letters in the words.
-    public short[][] frequencyMap = null;
+    // Bit 0 and bit 4 of every 5-bit field, and the low 4 bits of every field.
+    static final long LOW_BITS;
+    static final long HIGH_BITS;
+    static final long LOW_NIBBLES;
+
+    static {
+        long low = 0;
+        for (int i = 0; i < LETTERS_PER_LONG; i++) {
+            low |= 1L << (i * BITS_PER_LETTER);
+        }
+        LOW_BITS = low;
+        HIGH_BITS = low << 4;
+        LOW_NIBBLES = low * 0xF;
+    }
+
+    public final int length;
+
+    // Number of longs used by one packed word.
+    public final int stride;
+
+    // null once dropWords() has run.
+    public LongBuffer words = null;
+
+    // Backing array of words while the group is being built from a word list. null for mapped groups.
+    private long[] wordArray = null;
+
+    // Open addressing table of (word index + 1) over wordArray, so insert() can skip duplicates without
+    // a HashSet of Strings. Only needed until initialize().
+    private int[] knownWords = null;
+
+    // Number of words stored in words.
+    public int count = 0;
+
+    // Used to store the frequency of unique letters in the words: frequencyMap.get(position * 26 + letter).
+    public ShortBuffer frequencyMap = null;
+
+    // Backing array of frequencyMap while the group is being built. null for mapped and off-heap groups.
+    private short[] frequencyArray = null;
 
     char bestFirstGuess = '0';
 
+    // Only built when games use the bitset engine.
+    BitsetIndex bitsetIndex = null;
+
+    // Only built when games use the dawg engine.
+    Dawg dawg = null;
+
+    // See fingerprint(). 0 until first asked for.
+    private volatile long fingerprint = 0;
+
+    // HIGH_BITS restricted to the fields actually used by a word, for each long of a word.
+    final long[] usedFields;
+
     public WordGroup(int length) {
-        words = new ArrayList<>();
-        frequencyMap = new short[length][];
-        for (int i = 0; i < length; i++) {
-            frequencyMap[i] = new short[26];
-        }
+        this.length = length;
+        this.stride = strideFor(length);
+        wordArray = new long[stride * 16];
+        words = LongBuffer.wrap(wordArray);
+        knownWords = new int[32];
+        frequencyArray = new short[length * 26];
+        frequencyMap = ShortBuffer.wrap(frequencyArray);
+        usedFields = usedFieldsFor(length);
     }
 
-    // copy constructor
-    public WordGroup(WordGroup other) {
-        this.words = new ArrayList<>(other.words);
-        this.frequencyMap = new short[other.frequencyMap.length][];
-        for (int i = 0; i < other.frequencyMap.length; i++) {
-            this.frequencyMap[i] = other.frequencyMap[i].clone();
-        }
-        this.bestFirstGuess = other.bestFirstGuess;
+    // A group that is already complete, e.g. read back from a DictionarySnapshot. No initialize() needed.
+    public WordGroup(int length, int count, LongBuffer words, ShortBuffer frequencyMap, char bestFirstGuess) {
+        this.length = length;
+        this.stride = strideFor(length);
+        this.count = count;
+        this.words = words;
+        this.frequencyMap = frequencyMap;
+        this.bestFirstGuess = bestFirstGuess;
+        usedFields = usedFieldsFor(length);
     }
 
     public void initialize(String currentMask, boolean[] guessedLetters) {
         // Called after all inserts have been made. This will allow us to generate the best guess.
-        words.trimToSize();
+        trimToSize();
+        knownWords = null;
         bestFirstGuess = getBestGuess(currentMask, guessedLetters);
     }
 
-    public static byte[] stringToByteArray(String word) {
-        byte[] result = new byte[word.length()];
-        for (int i = 0; i < word.length(); i++) {
-            result[i] = (byte)(word.charAt(i) - 'a');
+    // Move words and frequencyMap out of the Java heap into direct buffers, once initialize() has run. Filtering and
+    // guessing read them the same way as before, but the GC never has to look at them again.
+    public void moveOffHeap() {
+        if (frequencyMap.isDirect()) {
+            // Mapped from a DictionarySnapshot, so already off heap.
+            return;
+        }
+        if (words != null) {
+            LongBuffer offHeapWords = ByteBuffer.allocateDirect(Math.max(8, count * stride * 8)).order(ByteOrder.nativeOrder()).asLongBuffer();
+            offHeapWords.put(words.duplicate().position(0).limit(count * stride)).flip();
+            words = offHeapWords;
+        }
+        ShortBuffer offHeapFrequencies = ByteBuffer.allocateDirect(Math.max(2, length * 26 * 2)).order(ByteOrder.nativeOrder()).asShortBuffer();
+        offHeapFrequencies.put(frequencyMap.duplicate().position(0)).flip();
+        frequencyMap = offHeapFrequencies;
+        wordArray = null;
+        frequencyArray = null;
+    }
+
+    // Let go of the packed words, once initialize() has run, for a group that a Dawg stands in for. count,
+    // frequencyMap and bestFirstGuess stay, so the group can still start games, but nothing can read a word of it
+    // any more: no SurvivorSet, BitsetIndex, PolicyTable build or DictionarySnapshot. fingerprint() is worked out
+    // first, while the words are still there.
+    void dropWords() {
+        fingerprint();
+        words = null;
+        wordArray = null;
+    }
+
+    // A hash of the set of words in this group, whatever their order. A PolicyTable keeps it to tell whether it was
+    // built from the same words.
+    long fingerprint() {
+        long result = fingerprint;
+        if (result == 0) {
+            result = length * 0x9E3779B97F4A7C15L + count;
+            for (int word = 0; word < count; word++) {
+                long hash = 0;
+                for (int k = 0; k < stride; k++) {
+                    hash = (hash ^ words.get(word * stride + k)) * 0x9E3779B97F4A7C15L;
+                    hash ^= hash >>> 29;
+                }
+                result += hash;
+            }
+            result = result == 0 ? 1 : result;
+            fingerprint = result;
         }
         return result;
     }
 
+    static int strideFor(int length) {
+        return Math.max(1, (length + LETTERS_PER_LONG - 1) / LETTERS_PER_LONG);
+    }
+
+    static long[] usedFieldsFor(int length) {
+        long[] result = new long[strideFor(length)];
+        for (int i = 0; i < length; i++) {
+            result[i / LETTERS_PER_LONG] |= 1L << ((i % LETTERS_PER_LONG) * BITS_PER_LETTER + 4);
+        }
+        return result;
+    }
 
-    public void insert(String word) {
-        byte[] wordBytes = stringToByteArray(word);
-        words.add(wordBytes);
-        addToFrequencyMap(wordBytes);
+    // Returns the high bit of every field in packed that holds letter.
+    static long matchingFields(long packed, int letter) {
+        long x = packed ^ (LOW_BITS * letter);
+        // A field of x is zero only if neither its low nibble carries into bit 4 nor bit 4 is already set.
+        long y = (x & LOW_NIBBLES) + LOW_NIBBLES;
+        return ~(y | x) & HIGH_BITS;
     }
 
-    private void addToFrequencyMap(byte[] word) {
-        // increment frequencyMap for each letter seen in sequence.
-        for (int i = 0; i < word.length; i++) {
-            frequencyMap[i][word[i]]++;
+    // Append the word packed in packed[offset, offset + stride), unless the group already has it.
+    // Returns false for a duplicate.
+    public boolean insert(long[] packed, int offset) {
+        if ((count + 1) * 2 > knownWords.length) {
+            rehashKnownWords(knownWords.length * 2);
+        }
+        int mask = knownWords.length - 1;
+        int slot = hash(packed, offset) & mask;
+        while (knownWords[slot] != 0) {
+            if (sameWord(knownWords[slot] - 1, packed, offset)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        knownWords[slot] = count + 1;
+
+        if (count * stride == wordArray.length) {
+            wordArray = Arrays.copyOf(wordArray, wordArray.length * 2);
+            words = LongBuffer.wrap(wordArray);
         }
+        System.arraycopy(packed, offset, wordArray, count * stride, stride);
+        addToFrequencyMap(count);
+        count++;
+        return true;
     }
 
-    private void removeFromFrequencyMap(byte[] word) {
-        // decrement frequencyMap for each letter seen in sequence.
-        for (int i = 0; i < word.length; i++) {
-            frequencyMap[i][word[i]]--;
+    // Does the group already have the word packed in packed[offset, offset + stride)? Only until initialize().
+    boolean contains(long[] packed, int offset) {
+        int mask = knownWords.length - 1;
+        int slot = hash(packed, offset) & mask;
+        while (knownWords[slot] != 0) {
+            if (sameWord(knownWords[slot] - 1, packed, offset)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
         }
+        return false;
     }
 
-    public void processBadLetter(char badLetter) {
-        // Iterate through words, removing all which contain badLetter. As they are removed, call removeFromFrequencyMap on them.
-        byte checkLetter = (byte)(badLetter - 'a');
-        words.removeIf(entry -> {
-            for(byte b : entry) {
-                if(b == checkLetter) {
-                    removeFromFrequencyMap(entry);
-                    return true;
-                }
+    // Pack word into packed[0, strideFor(word.length())), 5 bits per letter. Returns false unless word is all
+    // letters; upper case is folded to lower case like WordLoader does.
+    static boolean pack(String word, long[] packed) {
+        Arrays.fill(packed, 0, strideFor(word.length()), 0L);
+        for (int i = 0; i < word.length(); i++) {
+            char letter = Character.toLowerCase(word.charAt(i));
+            if (letter < 'a' || letter > 'z') {
+                return false;
             }
-            return false;
-        });
-        words.trimToSize();
+            packed[i / LETTERS_PER_LONG] |= (long)(letter - 'a') << ((i % LETTERS_PER_LONG) * BITS_PER_LETTER);
+        }
+        return word.length() > 0;
+    }
+
+    private int hash(long[] packed, int offset) {
+        long h = 0;
+        for (int k = 0; k < stride; k++) {
+            h = (h + packed[offset + k]) * 0x9E3779B97F4A7C15L;
+        }
+        return (int)(h ^ (h >>> 32));
     }
 
-    public void processGoodPattern(char goodLetter, String pattern) {
-        byte checkLetter = (byte)(goodLetter - 'a');
-        boolean[] isGoodPosition = new boolean[pattern.length()];  // Tracks valid positions for checkLetter
+    private boolean sameWord(int word, long[] packed, int offset) {
+        for (int k = 0; k < stride; k++) {
+            if (wordArray[word * stride + k] != packed[offset + k]) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        // Mark the positions where goodLetter must appear
+    private void rehashKnownWords(int capacity) {
+        knownWords = new int[capacity];
+        int mask = capacity - 1;
+        for (int word = 0; word < count; word++) {
+            int slot = hash(wordArray, word * stride) & mask;
+            while (knownWords[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            knownWords[slot] = word + 1;
+        }
+    }
+
+    private void trimToSize() {
+        if (wordArray != null && wordArray.length != count * stride) {
+            wordArray = Arrays.copyOf(wordArray, count * stride);
+            words = LongBuffer.wrap(wordArray);
+        }
+    }
+
+    private void addToFrequencyMap(int word) {
+        int position = 0;
+        for (int k = 0; k < stride; k++) {
+            long packed = wordArray[word * stride + k];
+            int end = Math.min(length, position + LETTERS_PER_LONG);
+            for (; position < end; position++) {
+                frequencyArray[position * 26 + ((int)packed & 0x1F)]++;
+                packed >>>= BITS_PER_LETTER;
+            }
+        }
+    }
+
+    // increment table[position][letter] for each letter of word seen in sequence.
+    void countLetters(int word, short[][] table) {
+        int position = 0;
+        for (int k = 0; k < stride; k++) {
+            long packed = words.get(word * stride + k);
+            int end = Math.min(length, position + LETTERS_PER_LONG);
+            for (; position < end; position++) {
+                table[position][(int)packed & 0x1F]++;
+                packed >>>= BITS_PER_LETTER;
+            }
+        }
+    }
+
+    // Does word contain letter anywhere?
+    boolean containsLetter(int word, int letter) {
+        int base = word * stride;
+        for (int k = 0; k < stride; k++) {
+            if ((matchingFields(words.get(base + k), letter) & usedFields[k]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Fill goodFields with the high bit of every field where pattern shows goodLetter.
+    static void patternFields(char goodLetter, String pattern, long[] goodFields) {
+        for (int k = 0; k < goodFields.length; k++) {
+            goodFields[k] = 0;
+        }
         for (int i = 0; i < pattern.length(); i++) {
             if (pattern.charAt(i) == goodLetter) {
-                isGoodPosition[i] = true;
+                goodFields[i / LETTERS_PER_LONG] |= 1L << ((i % LETTERS_PER_LONG) * BITS_PER_LETTER + 4);
             }
         }
+    }
 
-        // Filter out words that do not match the exact pattern of goodLetter
-        words.removeIf(entry -> {
-            for (int i = 0; i < entry.length; i++) {
-                // Check if positions of goodLetter in word match the pattern
-                if ((entry[i] == checkLetter && !isGoodPosition[i]) || // goodLetter where it shouldn't be
-                        (isGoodPosition[i] && entry[i] != checkLetter)) {  // Not goodLetter where it should be
-                    removeFromFrequencyMap(entry);
-                    return true;  // Remove word as it doesn't match the pattern
-                }
+    // Fill goodFields with the high bit of every field whose position is set in positions.
+    static void positionFields(int positions, long[] goodFields) {
+        for (int k = 0; k < goodFields.length; k++) {
+            goodFields[k] = 0;
+        }
+        while (positions != 0) {
+            int i = Integer.numberOfTrailingZeros(positions);
+            goodFields[i / LETTERS_PER_LONG] |= 1L << ((i % LETTERS_PER_LONG) * BITS_PER_LETTER + 4);
+            positions &= positions - 1;
+        }
+    }
+
+    // Bit i set for every position i of word that holds letter.
+    int positionsOf(int word, int letter) {
+        int base = word * stride;
+        int result = 0;
+        for (int k = 0; k < stride; k++) {
+            long fields = matchingFields(words.get(base + k), letter) & usedFields[k];
+            while (fields != 0) {
+                int field = Long.numberOfTrailingZeros(fields) / BITS_PER_LETTER;
+                result |= 1 << (k * LETTERS_PER_LONG + field);
+                fields &= fields - 1;
             }
-            return false;  // Keep the word as it matches the pattern
-        });
-        words.trimToSize();
+        }
+        return result;
+    }
+
+    // Letter (0-25) at position of word. Any length.
+    int letterAt(int word, int position) {
+        long packed = words.get(word * stride + position / LETTERS_PER_LONG);
+        return (int)(packed >>> ((position % LETTERS_PER_LONG) * BITS_PER_LETTER)) & 0x1F;
+    }
+
+    // How many leading letters words a and b have in common. Any length.
+    int commonPrefix(int a, int b) {
+        for (int k = 0; k < stride; k++) {
+            long differ = words.get(a * stride + k) ^ words.get(b * stride + k);
+            if (differ != 0) {
+                return Math.min(length, k * LETTERS_PER_LONG + Long.numberOfTrailingZeros(differ) / BITS_PER_LETTER);
+            }
+        }
+        return length;
+    }
+
+    // OR 1 << position into positions[letter] for every letter of word. Returns the set of letters in word,
+    // bit letter for each; only those entries of positions were touched.
+    int letterPositions(int word, int[] positions) {
+        int base = word * stride;
+        int letters = 0;
+        int position = 0;
+        for (int k = 0; k < stride; k++) {
+            long packed = words.get(base + k);
+            int end = Math.min(length, position + LETTERS_PER_LONG);
+            for (; position < end; position++) {
+                int letter = (int)packed & 0x1F;
+                positions[letter] |= 1 << position;
+                letters |= 1 << letter;
+                packed >>>= BITS_PER_LETTER;
+            }
+        }
+        return letters;
     }
 
+    // Position masks (revealBits, positionsOf, letterPositions and everything that takes their results) are ints,
+    // so they only cover words of up to this many letters. Longer words go through the String methods instead.
+    static final int MAX_MASK_LENGTH = 31;
+
+    // Bit i set for every position i of pattern that shows letter.
+    static int revealBits(char letter, String pattern) {
+        int result = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) == letter) {
+                result |= 1 << i;
+            }
+        }
+        return result;
+    }
+
+    // Does word have letter in exactly the fields marked in goodFields, and nowhere else?
+    boolean matchesPattern(int word, int letter, long[] goodFields) {
+        int base = word * stride;
+        for (int k = 0; k < stride; k++) {
+            if ((matchingFields(words.get(base + k), letter) & usedFields[k]) != goodFields[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
 
     public char getBestGuess(String currentMask, boolean[] guessedLetters) {
         // Using frequencyMap, find the highest index that doesn't appear in guessedLetters. Then generate the character from that index.
@@ -114,21 +401,23 @@ public class WordGroup {
             if(currentMask.charAt(i) == ' ') {
                 for(int j = 0; j < 26; j++) {
                     if(!guessedLetters[j])
-                        totalFrequency[j] += frequencyMap[i][j];
+                        totalFrequency[j] += frequencyMap.get(i * 26 + j);
                 }
             }
         }
 
-        int bestIndex = -1;
-        int bestValue = -1;
+        return (char)(mostFrequent(totalFrequency, guessedLetters) + 'a');
+    }
 
+    // The letter (0-25) with the highest total that is not in guessedLetters, the pick of every frequency
+    // heuristic. Ties go to the earliest letter. 0 if every letter has been guessed.
+    static int mostFrequent(int[] totals, boolean[] guessedLetters) {
+        int best = -1;
         for (int i = 0; i < 26; i++) {
-            if (totalFrequency[i] > bestValue) {
-                bestValue = totalFrequency[i];
-                bestIndex = i;
+            if (!guessedLetters[i] && (best < 0 || totals[i] > totals[best])) {
+                best = i;
             }
         }
-
-        return (char)(bestIndex + 'a');
+        return Math.max(best, 0);
     }
 }
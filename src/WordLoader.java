@@ -0,0 +1,255 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Loads a word file (one word per line) into WordGroups without creating a String per word.
+//
+// The file is memory mapped and read byte by byte: each line is lowercased and packed straight into 5-bit letters,
+// and WordGroup.insert() skips duplicates with a hash table over the packed letters. Empty lines and lines with
+// anything but letters are skipped.
+//
+// With -Dhangman.parallelLoad=true the file is split at line boundaries into ranges that are parsed and bucketed
+// by length as fork-join tasks. Buckets stay in file order, and each length is then deduplicated, built and
+// initialized as its own task. A word can only be a duplicate of a word of the same length, so deduplicating
+// per length keeps the same first occurrences as the sequential load, and the groups come out identical.
+//
+// With -Dhangman.lazyGroups=true only the bucketing is done up front (bucket()), and WordDictionary builds each
+// length's group from its buckets the first time that length is played (build()).
+public class WordLoader {
+
+    // Bytes per leaf task when parsing in parallel.
+    private static final int BYTES_PER_TASK = 256 * 1024;
+
+    private interface WordSink {
+        void word(int length, long[] packed);
+    }
+
+    private static ByteBuffer map(String wordFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(wordFile), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(wordFile + " is too large");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    // Parse the lines in file[from, to). from must be the start of a line.
+    private static void parse(ByteBuffer file, int from, int to, WordSink sink) {
+        long[] packed = new long[4];
+        int start = from;
+        while (start < to) {
+            int end = start;
+            while (end < to && file.get(end) != '\n') {
+                end++;
+            }
+            int lineEnd = end > start && file.get(end - 1) == '\r' ? end - 1 : end;
+            int length = lineEnd - start;
+
+            int stride = WordGroup.strideFor(length);
+            if (packed.length < stride) {
+                packed = new long[stride];
+            }
+            for (int k = 0; k < stride; k++) {
+                packed[k] = 0;
+            }
+            boolean valid = length > 0;
+            for (int i = 0; i < length && valid; i++) {
+                int letter = file.get(start + i);
+                if (letter >= 'A' && letter <= 'Z') {
+                    letter += 'a' - 'A';
+                }
+                if (letter < 'a' || letter > 'z') {
+                    valid = false;
+                } else {
+                    packed[i / WordGroup.LETTERS_PER_LONG] |= (long)(letter - 'a') << ((i % WordGroup.LETTERS_PER_LONG) * WordGroup.BITS_PER_LETTER);
+                }
+            }
+            if (valid) {
+                sink.word(length, packed);
+            }
+            start = end + 1;
+        }
+    }
+
+    // Index of the first line starting at or after position.
+    private static int lineStart(ByteBuffer file, int position) {
+        if (position == 0) {
+            return 0;
+        }
+        while (position < file.limit() && file.get(position - 1) != '\n') {
+            position++;
+        }
+        return position;
+    }
+
+    // Inserts every word straight into the WordGroup of its length.
+    private static class Groups implements WordSink {
+        WordGroup[] byLength = new WordGroup[32];
+
+        public void word(int length, long[] packed) {
+            if (length >= byLength.length) {
+                byLength = Arrays.copyOf(byLength, length * 2);
+            }
+            if (byLength[length] == null) {
+                byLength[length] = new WordGroup(length);
+            }
+            byLength[length].insert(packed, 0);
+        }
+    }
+
+    public static HashMap<Integer, WordGroup> load(String wordFile) throws IOException {
+        ByteBuffer file = map(wordFile);
+        Groups groups = new Groups();
+        parse(file, 0, file.limit(), groups);
+
+        HashMap<Integer, WordGroup> wordsByLength = new HashMap<>();
+        for (int length = 0; length < groups.byLength.length; length++) {
+            WordGroup group = groups.byLength[length];
+            if (group != null) {
+                group.initialize(" ".repeat(length), new boolean[26]);
+                wordsByLength.put(length, group);
+            }
+        }
+        return wordsByLength;
+    }
+
+    // Packed words of one range of the file, bucketed by length, in file order.
+    static class Buckets implements WordSink {
+        long[][] words = new long[32][];
+        int[] used = new int[32];
+
+        public void word(int length, long[] packed) {
+            if (length >= words.length) {
+                words = Arrays.copyOf(words, length * 2);
+                used = Arrays.copyOf(used, length * 2);
+            }
+            int stride = WordGroup.strideFor(length);
+            if (words[length] == null) {
+                words[length] = new long[stride * 256];
+            } else if (used[length] + stride > words[length].length) {
+                words[length] = Arrays.copyOf(words[length], words[length].length * 2);
+            }
+            System.arraycopy(packed, 0, words[length], used[length], stride);
+            used[length] += stride;
+        }
+    }
+
+    // Never serialized, like every ForkJoinTask here.
+    @SuppressWarnings("serial")
+    private static class BucketTask extends RecursiveTask<ArrayList<Buckets>> {
+        private final ByteBuffer file;
+        private final int from;
+        private final int to;
+
+        BucketTask(ByteBuffer file, int from, int to) {
+            this.file = file;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected ArrayList<Buckets> compute() {
+            int middle = lineStart(file, (from + to) >>> 1);
+            if (to - from <= BYTES_PER_TASK || middle >= to) {
+                Buckets buckets = new Buckets();
+                parse(file, from, to, buckets);
+                ArrayList<Buckets> result = new ArrayList<>();
+                result.add(buckets);
+                return result;
+            }
+            BucketTask left = new BucketTask(file, from, middle);
+            BucketTask right = new BucketTask(file, middle, to);
+            right.fork();
+            ArrayList<Buckets> result = left.compute();
+            result.addAll(right.join());
+            return result;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static class GroupTask extends RecursiveTask<WordGroup> {
+        private final int length;
+        private final ArrayList<Buckets> ranges;
+
+        GroupTask(int length, ArrayList<Buckets> ranges) {
+            this.length = length;
+            this.ranges = ranges;
+        }
+
+        protected WordGroup compute() {
+            return build(length, ranges);
+        }
+    }
+
+    // Bucket every word of wordFile by length, in file order, without building any WordGroup.
+    static ArrayList<Buckets> bucket(String wordFile, boolean parallel) throws IOException {
+        ByteBuffer file = map(wordFile);
+        if (parallel) {
+            return ForkJoinPool.commonPool().invoke(new BucketTask(file, 0, file.limit()));
+        }
+        Buckets buckets = new Buckets();
+        parse(file, 0, file.limit(), buckets);
+        ArrayList<Buckets> ranges = new ArrayList<>();
+        ranges.add(buckets);
+        return ranges;
+    }
+
+    // Word lengths that have at least one word in ranges.
+    static ArrayList<Integer> lengths(ArrayList<Buckets> ranges) {
+        ArrayList<Integer> lengths = new ArrayList<>();
+        for (int length = 0; ; length++) {
+            boolean longer = false;
+            boolean present = false;
+            for (Buckets range : ranges) {
+                longer |= length < range.words.length;
+                present |= length < range.words.length && range.words[length] != null;
+            }
+            if (!longer) {
+                return lengths;
+            }
+            if (present) {
+                lengths.add(length);
+            }
+        }
+    }
+
+    // Deduplicate, build and initialize the WordGroup of length from its buckets, then let go of them.
+    // Different lengths may be built at the same time; each only touches its own buckets.
+    static WordGroup build(int length, ArrayList<Buckets> ranges) {
+        WordGroup group = new WordGroup(length);
+        for (Buckets range : ranges) {
+            if (length < range.words.length && range.words[length] != null) {
+                for (int offset = 0; offset < range.used[length]; offset += group.stride) {
+                    group.insert(range.words[length], offset);
+                }
+                range.words[length] = null;
+            }
+        }
+        group.initialize(" ".repeat(length), new boolean[26]);
+        return group;
+    }
+
+    public static HashMap<Integer, WordGroup> loadParallel(String wordFile) throws IOException {
+        ArrayList<Buckets> ranges = bucket(wordFile, true);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        ArrayList<GroupTask> tasks = new ArrayList<>();
+        for (int length : lengths(ranges)) {
+            GroupTask task = new GroupTask(length, ranges);
+            pool.execute(task);
+            tasks.add(task);
+        }
+        HashMap<Integer, WordGroup> wordsByLength = new HashMap<>();
+        for (GroupTask task : tasks) {
+            WordGroup group = task.join();
+            wordsByLength.put(group.length, group);
+        }
+        return wordsByLength;
+    }
+}
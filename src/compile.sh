@@ -1,2 +1,7 @@
 #!/bin/bash
-javac EvalHangmanPlayer.java HangmanPlayer.java WordGroup.java
+javac *.java || exit 1
+# "compile.sh simd" also builds VectorKernels (../simd) for -Dhangman.simd=true. It needs the incubating Vector API,
+# at run time too (java --add-modules jdk.incubator.vector ...); without it the player stays on the scalar kernels.
+if [ "$1" = "simd" ]; then
+    javac --add-modules jdk.incubator.vector -cp . -d . ../simd/VectorKernels.java
+fi